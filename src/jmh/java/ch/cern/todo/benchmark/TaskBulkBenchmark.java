@@ -0,0 +1,70 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.BulkResultDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.service.TaskService;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Inserts the same 1000 tasks one transaction per task, as the single-row endpoint does, and in
+ * one batched transaction, as the bulk endpoint does. Scores are per inserted task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TaskBulkBenchmark {
+
+  private static final int TASKS = 1000;
+
+  private ConfigurableApplicationContext context;
+  private TaskService taskService;
+  private List<TaskDto> tasks;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkApplication.start("bulk");
+    taskService = context.getBean(TaskService.class);
+    tasks = new ArrayList<>(TASKS);
+    for (int index = 0; index < TASKS; index++) {
+      tasks.add(TaskDto.builder()
+          .categoryId(index % 3 + 1)
+          .name("task " + index)
+          .description("Description of task " + index)
+          .deadline(LocalDateTime.of(2023, 10, 1, 12, 30))
+          .build());
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TASKS)
+  public void singleRowInserts(Blackhole blackhole) {
+    for (TaskDto task : tasks) {
+      blackhole.consume(taskService.saveTask(task));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TASKS)
+  public List<BulkResultDto> bulkInsert() {
+    return taskService.createTasks(tasks);
+  }
+}
@@ -0,0 +1,84 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.BulkResultDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.service.TaskIngestService;
+import ch.cern.todo.service.TaskService;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Task creation throughput: one transaction per task, as behind {@code POST /tasks/create}, against
+ * the write-behind path behind {@code POST /tasks/ingest}. Both are driven by 32 concurrent
+ * producers that each wait for their task to commit. The queued path is measured by one producer
+ * that queues tasks without waiting and only waits for the commit of every thousandth, so that its
+ * score is the sustained rate of the writers rather than the speed of filling an empty queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+public class TaskIngestBenchmark {
+
+  private static final int QUEUED_TASKS = 1000;
+  private static final TaskDto TASK = TaskDto.builder()
+      .categoryId(1)
+      .name("ingested task")
+      .description("Description of an ingested task")
+      .deadline(LocalDateTime.of(2023, 10, 1, 12, 30))
+      .build();
+
+  private ConfigurableApplicationContext context;
+  private TaskService taskService;
+  private TaskIngestService taskIngestService;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkApplication.start("ingest");
+    taskService = context.getBean(TaskService.class);
+    taskIngestService = context.getBean(TaskIngestService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public TaskDto createTask() {
+    return taskService.saveTask(TASK);
+  }
+
+  @Benchmark
+  public BulkResultDto ingestTaskDurably() throws IOException {
+    return ingest(true).join();
+  }
+
+  @Benchmark
+  @Threads(1)
+  @OperationsPerInvocation(QUEUED_TASKS)
+  public BulkResultDto ingestTasks() throws IOException {
+    for (int task = 1; task < QUEUED_TASKS; task++) ingest(false);
+    return ingest(true).join();
+  }
+
+  private CompletableFuture<BulkResultDto> ingest(boolean durable) throws IOException {
+    CompletableFuture<BulkResultDto> result;
+    while ((result = taskIngestService.ingest(TASK, durable)) == null) LockSupport.parkNanos(100_000);
+    return result;
+  }
+}
@@ -0,0 +1,67 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.entities.Task;
+import ch.cern.todo.utils.DateUtils;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskMappingBenchmark {
+
+  private TaskDto taskDto;
+  private Task task;
+  private String deadline;
+  private char[] buffer;
+
+  @Setup
+  public void setUp() {
+    taskDto = TaskDto.builder()
+        .id(1)
+        .categoryId(1)
+        .name("Benchmark task")
+        .description("A task used to measure the mapping between entities and DTOs")
+        .deadline(LocalDateTime.of(2023, 10, 1, 12, 30, 15))
+        .build();
+    task = Task.from(taskDto).toBuilder()
+        .lastModified(new Timestamp(System.currentTimeMillis()))
+        .build();
+    deadline = taskDto.getDeadline().toString();
+    buffer = new char[DateUtils.MAX_DATE_TIME_LENGTH];
+  }
+
+  @Benchmark
+  public TaskDto taskDtoFrom() {
+    return TaskDto.from(task);
+  }
+
+  @Benchmark
+  public Task taskFrom() {
+    return Task.from(taskDto);
+  }
+
+  @Benchmark
+  public LocalDateTime parseDateTime() {
+    return DateUtils.parseDateTime(deadline);
+  }
+
+  @Benchmark
+  public String dateTimeToString() {
+    return taskDto.getDeadline().toString();
+  }
+
+  @Benchmark
+  public int formatDateTime() {
+    return DateUtils.formatDateTime(taskDto.getDeadline(), buffer);
+  }
+}
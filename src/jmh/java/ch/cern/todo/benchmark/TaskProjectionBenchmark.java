@@ -0,0 +1,58 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.service.TaskService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares listing every task through managed entities with the DTO projection used by
+ * {@link TaskService#getTasks()}. Run with {@code -prof gc} to compare the allocated bytes too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskProjectionBenchmark {
+
+  @Param({"100000", "1000000"})
+  private int rows;
+
+  private ConfigurableApplicationContext context;
+  private TaskRepository taskRepository;
+  private TaskService taskService;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkApplication.start("projection");
+    BenchmarkApplication.seedTasks(context, rows);
+    taskRepository = context.getBean(TaskRepository.class);
+    taskService = context.getBean(TaskService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<TaskDto> entities() {
+    return taskRepository.findAll().stream().map(TaskDto::from).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public List<TaskDto> projection() {
+    return taskService.getTasks();
+  }
+}
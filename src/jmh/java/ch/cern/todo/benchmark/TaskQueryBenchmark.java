@@ -0,0 +1,93 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.dtos.TaskFilterDto;
+import ch.cern.todo.service.TaskService;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Filtered task queries on a million rows, with the deadline indexes of the schema and with those
+ * indexes dropped, so that their effect on query latency can be compared directly. Without them
+ * only {@code idx_task_tenant_id} is left, which narrows nothing here since every seeded task
+ * belongs to the default tenant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskQueryBenchmark {
+
+  private static final int WINDOWS = 256;
+
+  @Param({"1000000"})
+  private int rows;
+
+  @Param({"true", "false"})
+  private boolean indexed;
+
+  private ConfigurableApplicationContext context;
+  private TaskService taskService;
+  private TaskFilterDto[] categoryAndDeadlineFilters;
+  private TaskFilterDto[] deadlineFilters;
+  private int next;
+
+  /**
+   * Every invocation uses a different deadline window: H2 hands back the previous result for an
+   * identical query on an unchanged table, which would otherwise hide the cost of the scan.
+   */
+  @Setup
+  public void setUp() {
+    context = BenchmarkApplication.start("query");
+    BenchmarkApplication.seedTasks(context, rows);
+    if (!indexed) {
+      JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+      jdbcTemplate.execute("DROP INDEX idx_task_tenant_category_deadline");
+      jdbcTemplate.execute("DROP INDEX idx_task_tenant_deadline");
+      jdbcTemplate.execute("DROP INDEX idx_task_deadline");
+    }
+    taskService = context.getBean(TaskService.class);
+
+    categoryAndDeadlineFilters = new TaskFilterDto[WINDOWS];
+    deadlineFilters = new TaskFilterDto[WINDOWS];
+    LocalDateTime start = LocalDateTime.of(2023, 6, 1, 0, 0);
+    for (int window = 0; window < WINDOWS; window++) {
+      LocalDateTime from = start.plusHours(window);
+      categoryAndDeadlineFilters[window] = TaskFilterDto.builder()
+          .categoryId(window % 3 + 1)
+          .deadlineFrom(from)
+          .deadlineTo(from.plusHours(12))
+          .build();
+      deadlineFilters[window] = TaskFilterDto.builder()
+          .deadlineFrom(from)
+          .deadlineTo(from.plusHours(1))
+          .build();
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<TaskDto> byCategoryAndDeadline() {
+    return taskService.getTasks(categoryAndDeadlineFilters[next++ % WINDOWS]);
+  }
+
+  @Benchmark
+  public List<TaskDto> byDeadline() {
+    return taskService.getTasks(deadlineFilters[next++ % WINDOWS]);
+  }
+}
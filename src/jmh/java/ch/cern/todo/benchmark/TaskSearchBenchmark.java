@@ -0,0 +1,73 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.TaskSearchResultDto;
+import ch.cern.todo.service.TaskSearchService;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures a page of search results over a million tasks named {@code task <id>}: an exact word
+ * matching one task, a prefix expanding to a dozen words, and a word that every task contains.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskSearchBenchmark {
+
+  private static final int QUERIES = 1024;
+
+  @Param({"1000000"})
+  private int rows;
+
+  private ConfigurableApplicationContext context;
+  private TaskSearchService taskSearchService;
+  private String[] exactQueries;
+  private String[] prefixQueries;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    context = BenchmarkApplication.start("search");
+    BenchmarkApplication.seedTasks(context, rows);
+    taskSearchService = context.getBean(TaskSearchService.class);
+    taskSearchService.rebuild();
+
+    exactQueries = new String[QUERIES];
+    prefixQueries = new String[QUERIES];
+    for (int query = 0; query < QUERIES; query++) {
+      int id = rows / 10 + query * 97;
+      exactQueries[query] = String.valueOf(id);
+      prefixQueries[query] = String.valueOf(id / 10);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public TaskSearchResultDto exactWord() throws IOException {
+    return taskSearchService.search(exactQueries[next++ % QUERIES], 0, 20);
+  }
+
+  @Benchmark
+  public TaskSearchResultDto prefix() throws IOException {
+    return taskSearchService.search(prefixQueries[next++ % QUERIES], 0, 20);
+  }
+
+  @Benchmark
+  public TaskSearchResultDto commonWord() throws IOException {
+    return taskSearchService.search("task", 0, 20);
+  }
+}
@@ -0,0 +1,81 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.TaskDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Serialization cost of a task list in each format the API negotiates, with and without gzip. The
+ * size of one response on the wire is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskSerializationBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  private int size;
+
+  @Param({"json", "smile", "cbor"})
+  private String format;
+
+  @Param({"none", "gzip"})
+  private String compression;
+
+  private ObjectMapper objectMapper;
+  private List<TaskDto> tasks;
+  private ByteArrayOutputStream buffer;
+
+  @Setup
+  public void setUp() {
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+    if (format.equals("smile")) builder.factory(new SmileFactory());
+    if (format.equals("cbor")) builder.factory(new CBORFactory());
+    objectMapper = builder.build();
+
+    LocalDateTime firstDeadline = LocalDateTime.of(2023, 10, 1, 12, 30);
+    tasks = new ArrayList<>(size);
+    for (int id = 1; id <= size; id++) {
+      tasks.add(TaskDto.builder()
+          .id(id)
+          .categoryId(id % 3 + 1)
+          .name("task " + id)
+          .description("Description of task " + id)
+          .deadline(firstDeadline.plusMinutes(id))
+          .build());
+    }
+    buffer = new ByteArrayOutputStream(size * 128);
+  }
+
+  @TearDown
+  public void reportResponseSize() {
+    System.out.printf("%n%s/%s, %d tasks: %d bytes per response%n", format, compression, size, buffer.size());
+  }
+
+  @Benchmark
+  public int serializeTasks() throws IOException {
+    buffer.reset();
+    OutputStream output = compression.equals("gzip") ? new GZIPOutputStream(buffer, 8192) : buffer;
+    objectMapper.writeValue(output, tasks);
+    return buffer.size();
+  }
+}
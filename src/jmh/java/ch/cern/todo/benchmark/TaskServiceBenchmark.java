@@ -0,0 +1,45 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.service.TaskService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskServiceBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  private int rows;
+
+  private ConfigurableApplicationContext context;
+  private TaskService taskService;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkApplication.start("service");
+    BenchmarkApplication.seedTasks(context, rows);
+    taskService = context.getBean(TaskService.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<TaskDto> getTasks() {
+    return taskService.getTasks();
+  }
+}
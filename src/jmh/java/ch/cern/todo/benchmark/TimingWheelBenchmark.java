@@ -0,0 +1,114 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.utils.TimingWheel;
+import java.util.SplittableRandom;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Keeps a million reminders pending over a one day horizon with one second ticks, the defaults of
+ * the reminder scheduler, and measures rescheduling one of them (a cancel plus a schedule) and
+ * turning the wheel by one tick. The {@link ScheduledThreadPoolExecutor} variant is the JDK
+ * alternative, a binary heap that removes cancelled tasks. Setup prints the heap retained per
+ * pending timer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimingWheelBenchmark {
+
+  private static final long TICK_MILLIS = 1000;
+  private static final long HORIZON_MILLIS = TimeUnit.DAYS.toMillis(1);
+  private static final Runnable NOOP = () -> { };
+
+  @State(Scope.Benchmark)
+  public static class Wheel {
+    @Param({"1000000"})
+    private int timers;
+
+    private SplittableRandom random;
+    private long now;
+    private TimingWheel<Integer> wheel;
+    private TimingWheel.Timer<Integer>[] pending;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+      random = new SplittableRandom(42);
+      long heapBefore = usedHeap();
+      wheel = new TimingWheel<>(TICK_MILLIS, now);
+      pending = new TimingWheel.Timer[timers];
+      for (int timer = 0; timer < timers; timer++) {
+        pending[timer] = wheel.schedule(timer, now + randomDelay(random));
+      }
+      System.out.printf("%nTiming wheel retains %d bytes per pending timer%n", (usedHeap() - heapBefore) / timers);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Executor {
+    @Param({"1000000"})
+    private int timers;
+
+    private SplittableRandom random;
+    private ScheduledThreadPoolExecutor executor;
+    private ScheduledFuture<?>[] pending;
+
+    @Setup
+    public void setUp() {
+      random = new SplittableRandom(42);
+      long heapBefore = usedHeap();
+      executor = new ScheduledThreadPoolExecutor(1);
+      executor.setRemoveOnCancelPolicy(true);
+      pending = new ScheduledFuture[timers];
+      for (int timer = 0; timer < timers; timer++) {
+        pending[timer] = executor.schedule(NOOP, randomDelay(random), TimeUnit.MILLISECONDS);
+      }
+      System.out.printf("%nExecutor retains %d bytes per pending timer%n", (usedHeap() - heapBefore) / timers);
+    }
+
+    @TearDown
+    public void tearDown() {
+      executor.shutdownNow();
+    }
+  }
+
+  @Benchmark
+  public TimingWheel.Timer<Integer> wheelReschedule(Wheel state) {
+    int timer = state.random.nextInt(state.timers);
+    state.wheel.cancel(state.pending[timer]);
+    return state.pending[timer] = state.wheel.schedule(timer, state.now + randomDelay(state.random));
+  }
+
+  @Benchmark
+  public int wheelTick(Wheel state) {
+    long now = state.now += TICK_MILLIS;
+    return state.wheel.advance(now, timer -> state.pending[timer] = state.wheel.schedule(timer, now + HORIZON_MILLIS));
+  }
+
+  @Benchmark
+  public ScheduledFuture<?> executorReschedule(Executor state) {
+    int timer = state.random.nextInt(state.timers);
+    state.pending[timer].cancel(false);
+    return state.pending[timer] = state.executor.schedule(NOOP, randomDelay(state.random), TimeUnit.MILLISECONDS);
+  }
+
+  private static long randomDelay(SplittableRandom random) {
+    return 1 + random.nextLong(HORIZON_MILLIS);
+  }
+
+  private static long usedHeap() {
+    for (int run = 0; run < 3; run++) System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
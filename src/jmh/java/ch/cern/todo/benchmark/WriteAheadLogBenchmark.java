@@ -0,0 +1,88 @@
+package ch.cern.todo.benchmark;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.utils.WriteAheadLog;
+import ch.cern.todo.utils.WriteAheadLog.FsyncPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Appends of a serialized task to the write-ahead log from 8 threads, for each fsync policy. As in
+ * the ingestion path, every record is marked applied, the log is checkpointed regularly and, with
+ * {@code INTERVAL}, synced every 100 ms. With {@code ALWAYS}, the score depends mostly on how long
+ * the disk takes to fsync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class WriteAheadLogBenchmark {
+
+  @Param({"NEVER", "INTERVAL", "ALWAYS"})
+  private FsyncPolicy fsync;
+
+  private Path directory;
+  private WriteAheadLog writeAheadLog;
+  private ObjectMapper objectMapper;
+  private TaskDto task;
+  private ScheduledExecutorService scheduler;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("wal-benchmark");
+    writeAheadLog = WriteAheadLog.open(directory, 64 * 1024 * 1024, fsync);
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    task = TaskDto.builder()
+        .categoryId(1)
+        .name("ingested task")
+        .description("Description of an ingested task")
+        .deadline(LocalDateTime.of(2023, 10, 1, 12, 30))
+        .build();
+
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    scheduler.scheduleWithFixedDelay(() -> {
+      try {
+        writeAheadLog.checkpoint();
+        if (fsync == FsyncPolicy.INTERVAL) writeAheadLog.sync();
+      } catch (IOException exception) {
+        throw new UncheckedIOException(exception);
+      }
+    }, 100, 100, TimeUnit.MILLISECONDS);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    scheduler.shutdownNow();
+    writeAheadLog.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public long append() throws IOException {
+    long sequence = writeAheadLog.append(objectMapper.writeValueAsBytes(task));
+    writeAheadLog.applied(sequence);
+    return sequence;
+  }
+}
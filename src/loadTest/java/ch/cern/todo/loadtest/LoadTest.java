@@ -0,0 +1,50 @@
+package ch.cern.todo.loadtest;
+
+import ch.cern.todo.TodoApplication;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs the mixed workload against {@code loadTest.target} or, when no target is given, against
+ * the application booted in-process on a random port with the {@code loadTest.profiles} profiles.
+ * It then uses an in-memory H2 database unless {@code loadTest.configuredDatabase} is set. Exits
+ * with a non-zero status when a latency or error threshold is exceeded, so it can gate a build.
+ */
+public class LoadTest {
+
+  public static void main(String[] args) throws Exception {
+    LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    ConfigurableApplicationContext context = null;
+    String baseUrl = settings.getTarget();
+
+    if (baseUrl == null) {
+      List<String> arguments = new ArrayList<>(List.of(
+          "--server.port=0",
+          "--spring.h2.console.enabled=false",
+          "--logging.level.root=WARN"));
+      if (settings.getProfiles() != null) arguments.add("--spring.profiles.active=" + settings.getProfiles());
+      if (!settings.isConfiguredDatabase()) {
+        arguments.add("--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        arguments.add("--todo.ingest.wal.path=${java.io.tmpdir}/todo-wal-${random.uuid}");
+      }
+      context = SpringApplication.run(TodoApplication.class, arguments.toArray(new String[0]));
+      baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    boolean passes;
+    try {
+      Workload workload = new Workload(baseUrl, settings);
+      workload.seed();
+      LoadTestReport report = workload.run();
+      report.print(System.out);
+      report.write();
+      passes = report.passes(System.out);
+    } finally {
+      if (context != null) context.close();
+    }
+    System.exit(passes ? 0 : 1);
+  }
+}
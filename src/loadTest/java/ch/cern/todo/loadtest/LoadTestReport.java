@@ -0,0 +1,76 @@
+package ch.cern.todo.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Per-endpoint latency percentiles in milliseconds. Besides the summary table, the full
+ * percentile distribution of every endpoint is written as an {@code .hgrm} file, which can be
+ * plotted with the HdrHistogram tooling to compare two runs.
+ */
+public class LoadTestReport {
+
+  private static final double MICROS_PER_MILLI = 1000.0;
+
+  private final LoadTestSettings settings;
+  private final Map<Operation, Histogram> histograms;
+  private final Map<Operation, Long> errors;
+
+  public LoadTestReport(LoadTestSettings settings, Map<Operation, Histogram> histograms, Map<Operation, Long> errors) {
+    this.settings = settings;
+    this.histograms = histograms;
+    this.errors = errors;
+  }
+
+  public void print(PrintStream out) {
+    double seconds = settings.getDuration().toMillis() / 1000.0;
+    out.printf("Concurrency %d, duration %s, write ratio %.2f%n",
+        settings.getConcurrency(), settings.getDuration(), settings.getWriteRatio());
+    out.printf("%-50s %10s %8s %10s %10s %10s %10s %10s%n",
+        "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+    histograms.forEach((operation, histogram) -> out.printf("%-50s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+        operation.getEndpoint(),
+        histogram.getTotalCount(),
+        errors.get(operation),
+        histogram.getTotalCount() / seconds,
+        histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+        histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+        histogram.getValueAtPercentile(99.9) / MICROS_PER_MILLI,
+        histogram.getMaxValue() / MICROS_PER_MILLI));
+  }
+
+  public void write() throws IOException {
+    Files.createDirectories(settings.getReportDirectory());
+    try (PrintStream summary = new PrintStream(settings.getReportDirectory().resolve("summary.txt").toFile())) {
+      print(summary);
+    }
+    for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+      String fileName = entry.getKey().name().toLowerCase() + ".hgrm";
+      try (PrintStream distribution = new PrintStream(settings.getReportDirectory().resolve(fileName).toFile())) {
+        entry.getValue().outputPercentileDistribution(distribution, MICROS_PER_MILLI);
+      }
+    }
+  }
+
+  public boolean passes(PrintStream out) {
+    boolean passes = true;
+    for (Operation operation : Operation.values()) {
+      Histogram histogram = histograms.get(operation);
+      double p99 = histogram.getValueAtPercentile(99) / MICROS_PER_MILLI;
+      double errorRate = histogram.getTotalCount() == 0 ? 0 : (double) errors.get(operation) / histogram.getTotalCount();
+
+      if (settings.getMaxP99Millis() != null && p99 > settings.getMaxP99Millis()) {
+        out.printf("FAILED: %s p99 %.2f ms exceeds %.2f ms%n", operation.getEndpoint(), p99, settings.getMaxP99Millis());
+        passes = false;
+      }
+      if (errorRate > settings.getMaxErrorRate()) {
+        out.printf("FAILED: %s error rate %.4f exceeds %.4f%n", operation.getEndpoint(), errorRate, settings.getMaxErrorRate());
+        passes = false;
+      }
+    }
+    return passes;
+  }
+}
@@ -0,0 +1,43 @@
+package ch.cern.todo.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Load test parameters, read from {@code loadTest.*} system properties so that they can be passed
+ * through Gradle with {@code -PloadTest.concurrency=64} and friends.
+ */
+@Getter
+@Builder
+public class LoadTestSettings {
+  private String target;
+  private String profiles;
+  private boolean configuredDatabase;
+  private int concurrency;
+  private Duration warmup;
+  private Duration duration;
+  private int seedTasks;
+  private double writeRatio;
+  private Double maxP99Millis;
+  private double maxErrorRate;
+  private Path reportDirectory;
+
+  public static LoadTestSettings fromSystemProperties() {
+    return LoadTestSettings.builder()
+        .target(System.getProperty("loadTest.target"))
+        .profiles(System.getProperty("loadTest.profiles"))
+        .configuredDatabase(Boolean.getBoolean("loadTest.configuredDatabase"))
+        .concurrency(Integer.getInteger("loadTest.concurrency", 32))
+        .warmup(Duration.parse(System.getProperty("loadTest.warmup", "PT10S")))
+        .duration(Duration.parse(System.getProperty("loadTest.duration", "PT30S")))
+        .seedTasks(Integer.getInteger("loadTest.seedTasks", 10000))
+        .writeRatio(Double.parseDouble(System.getProperty("loadTest.writeRatio", "0.2")))
+        .maxP99Millis(System.getProperty("loadTest.maxP99Millis") == null
+            ? null : Double.valueOf(System.getProperty("loadTest.maxP99Millis")))
+        .maxErrorRate(Double.parseDouble(System.getProperty("loadTest.maxErrorRate", "0.0")))
+        .reportDirectory(Path.of(System.getProperty("loadTest.reportDirectory", "build/reports/load-test")))
+        .build();
+  }
+}
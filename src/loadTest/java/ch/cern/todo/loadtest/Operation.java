@@ -0,0 +1,20 @@
+package ch.cern.todo.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public enum Operation {
+  LIST_TASKS_PAGE("GET /tasks/?after&limit", false, 25),
+  FILTER_TASKS("GET /tasks/?categoryId&deadlineFrom&deadlineTo", false, 10),
+  GET_TASK("GET /tasks/{taskId}", false, 30),
+  LIST_CATEGORIES("GET /categories/", false, 10),
+  GET_CATEGORY("GET /categories/{categoryId}", false, 5),
+  CREATE_TASK("POST /tasks/create", true, 1),
+  UPDATE_TASK("PATCH /tasks/update", true, 1);
+
+  private final String endpoint;
+  private final boolean write;
+  private final int weight;
+}
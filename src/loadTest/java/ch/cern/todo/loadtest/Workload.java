@@ -0,0 +1,186 @@
+package ch.cern.todo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Closed-loop mixed workload: every client thread picks a weighted random operation, waits for
+ * the response and records its latency in the histogram of that endpoint.
+ */
+public class Workload {
+
+  private static final int CATEGORIES = 3;
+  private static final int SEED_BATCH_SIZE = 1000;
+  private static final LocalDateTime FIRST_DEADLINE = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+  private final String baseUrl;
+  private final LoadTestSettings settings;
+  private final HttpClient httpClient;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+  private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+  private final AtomicInteger maxTaskId = new AtomicInteger();
+
+  public Workload(String baseUrl, LoadTestSettings settings) {
+    this.baseUrl = baseUrl;
+    this.settings = settings;
+    this.httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    for (Operation operation : Operation.values()) {
+      recorders.put(operation, new Recorder(3));
+      errors.put(operation, new AtomicLong());
+    }
+  }
+
+  public void seed() throws IOException, InterruptedException {
+    for (int start = 0; start < settings.getSeedTasks(); start += SEED_BATCH_SIZE) {
+      ArrayNode tasks = objectMapper.createArrayNode();
+      for (int index = start; index < Math.min(start + SEED_BATCH_SIZE, settings.getSeedTasks()); index++) {
+        tasks.add(newTask(index));
+      }
+      HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/tasks/bulk"))
+          .header("Content-Type", "application/json")
+          .POST(BodyPublishers.ofString(tasks.toString())));
+      if (response.statusCode() != 200) {
+        throw new IllegalStateException("Seeding failed with status " + response.statusCode());
+      }
+      for (JsonNode result : objectMapper.readTree(response.body())) {
+        maxTaskId.accumulateAndGet(result.path("id").asInt(), Math::max);
+      }
+    }
+  }
+
+  public LoadTestReport run() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(settings.getConcurrency());
+    long warmupEnd = System.nanoTime() + settings.getWarmup().toNanos();
+    long end = warmupEnd + settings.getDuration().toNanos();
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (int client = 0; client < settings.getConcurrency(); client++) {
+      futures.add(clients.submit(() -> {
+        while (System.nanoTime() < end) execute(nextOperation());
+        return null;
+      }));
+    }
+
+    TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+    recorders.values().forEach(Recorder::reset);
+    errors.values().forEach(counter -> counter.set(0));
+
+    for (Future<?> future : futures) future.get();
+    clients.shutdown();
+
+    Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+      errorCounts.put(operation, errors.get(operation).get());
+    }
+    return new LoadTestReport(settings, histograms, errorCounts);
+  }
+
+  private void execute(Operation operation) {
+    HttpRequest.Builder request = request(operation);
+    long start = System.nanoTime();
+    try {
+      HttpResponse<String> response = send(request);
+      if (response.statusCode() >= 400) errors.get(operation).incrementAndGet();
+    } catch (IOException exception) {
+      errors.get(operation).incrementAndGet();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    recorders.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+  }
+
+  private HttpRequest.Builder request(Operation operation) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int taskId = 1 + random.nextInt(Math.max(1, maxTaskId.get()));
+    int categoryId = 1 + random.nextInt(CATEGORIES);
+
+    switch (operation) {
+      case LIST_TASKS_PAGE:
+        return HttpRequest.newBuilder(uri("/tasks/?after=" + taskId + "&limit=100"));
+      case FILTER_TASKS:
+        LocalDateTime from = FIRST_DEADLINE.plusHours(random.nextInt(Math.max(1, maxTaskId.get())));
+        return HttpRequest.newBuilder(uri("/tasks/?categoryId=" + categoryId
+            + "&deadlineFrom=" + from + "&deadlineTo=" + from.plusDays(1)));
+      case GET_TASK:
+        return HttpRequest.newBuilder(uri("/tasks/" + taskId));
+      case LIST_CATEGORIES:
+        return HttpRequest.newBuilder(uri("/categories/"));
+      case GET_CATEGORY:
+        return HttpRequest.newBuilder(uri("/categories/" + categoryId));
+      case CREATE_TASK:
+        return HttpRequest.newBuilder(uri("/tasks/create"))
+            .header("Content-Type", "application/json")
+            .POST(BodyPublishers.ofString(newTask(taskId).toString()));
+      case UPDATE_TASK:
+        return HttpRequest.newBuilder(uri("/tasks/update"))
+            .header("Content-Type", "application/json")
+            .method("PATCH", BodyPublishers.ofString(newTask(taskId).put("id", taskId).toString()));
+      default:
+        throw new IllegalArgumentException("Unsupported operation: " + operation);
+    }
+  }
+
+  private Operation nextOperation() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    boolean write = random.nextDouble() < settings.getWriteRatio();
+
+    int totalWeight = 0;
+    for (Operation operation : Operation.values()) {
+      if (operation.isWrite() == write) totalWeight += operation.getWeight();
+    }
+    int pick = random.nextInt(totalWeight);
+    for (Operation operation : Operation.values()) {
+      if (operation.isWrite() != write) continue;
+      pick -= operation.getWeight();
+      if (pick < 0) return operation;
+    }
+    throw new IllegalStateException("No operation picked");
+  }
+
+  private ObjectNode newTask(int index) {
+    return objectMapper.createObjectNode()
+        .put("name", "load test task " + index)
+        .put("description", "Created by the load test")
+        .put("categoryId", 1 + index % CATEGORIES)
+        .put("deadline", FIRST_DEADLINE.plusHours(index).toString());
+  }
+
+  private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+    return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), BodyHandlers.ofString());
+  }
+
+  private URI uri(String path) {
+    return URI.create(baseUrl + path);
+  }
+}
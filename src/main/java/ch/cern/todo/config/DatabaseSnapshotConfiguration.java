@@ -0,0 +1,32 @@
+package ch.cern.todo.config;
+
+import ch.cern.todo.service.DatabaseSnapshotService;
+import java.nio.file.Path;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Restores the snapshot written by {@link DatabaseSnapshotService} as soon as the data source
+ * exists, before Flyway migrates the schema. The snapshot includes Flyway's history table, so only
+ * migrations added since it was taken are applied.
+ */
+@Configuration
+@ConditionalOnProperty(name = "todo.snapshots.enabled", havingValue = "true")
+public class DatabaseSnapshotConfiguration {
+
+  @Bean
+  public static BeanPostProcessor databaseSnapshotRestorer(Environment environment) {
+    Path path = Path.of(environment.getProperty("todo.snapshots.path", DatabaseSnapshotService.DEFAULT_PATH));
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) DatabaseSnapshotService.restore((DataSource) bean, path);
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,65 @@
+package ch.cern.todo.config;
+
+import ch.cern.todo.utils.TenantContext;
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the dedicated tenant schemas of {@link TenantSchemas}: the data source is wrapped in a
+ * {@link TenantRoutingDataSource}, and every dedicated schema is created and migrated from
+ * {@value #TENANT_MIGRATIONS} after the shared one. Without dedicated tenants, neither happens.
+ */
+@Configuration
+public class TenancyConfiguration {
+
+  public static final String TENANT_KEY_GENERATOR = "tenantKeyGenerator";
+  public static final String TENANT_MIGRATIONS = "classpath:db/tenant";
+
+  @Bean
+  public static BeanPostProcessor tenantRoutingDataSourceWrapper(ObjectProvider<TenantSchemas> tenantSchemas) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || bean instanceof TenantRoutingDataSource) return bean;
+        TenantSchemas schemas = tenantSchemas.getObject();
+        if (schemas.getDedicatedTenants().isEmpty()) return bean;
+
+        if (bean instanceof HikariDataSource && ((HikariDataSource) bean).getSchema() == null)
+          throw new IllegalStateException("Dedicated tenant schemas need spring.datasource.hikari.schema to be set");
+        return new TenantRoutingDataSource((DataSource) bean, schemas);
+      }
+    };
+  }
+
+  @Bean
+  public FlywayMigrationStrategy tenantSchemaMigrationStrategy(TenantSchemas tenantSchemas) {
+    return flyway -> {
+      flyway.migrate();
+      for (String tenantId : tenantSchemas.getDedicatedTenants()) {
+        String schema = tenantSchemas.getSchema(tenantId);
+        Flyway.configure()
+            .configuration(flyway.getConfiguration())
+            .locations(TENANT_MIGRATIONS)
+            .schemas(schema)
+            .defaultSchema(schema)
+            .load()
+            .migrate();
+      }
+    };
+  }
+
+  /** Keys cache entries by the current tenant as well as by the method parameters. */
+  @Bean(TENANT_KEY_GENERATOR)
+  public KeyGenerator tenantKeyGenerator() {
+    return (target, method, params) -> new SimpleKey(TenantContext.getTenantId(), SimpleKeyGenerator.generateKey(params));
+  }
+}
@@ -0,0 +1,37 @@
+package ch.cern.todo.config;
+
+import static ch.cern.todo.utils.TenantContext.DEFAULT_TENANT;
+import static ch.cern.todo.utils.TenantContext.HEADER;
+
+import ch.cern.todo.utils.TenantContext;
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Runs every request as the tenant named by its {@code X-Tenant-Id} header, or as the default
+ * tenant without one. The header is trusted as is: it is meant to be set by an authenticating proxy
+ * in front of the application.
+ */
+@Component
+public class TenantFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String tenantId = request.getHeader(HEADER);
+    if (tenantId == null) tenantId = DEFAULT_TENANT;
+    if (!TenantContext.isValid(tenantId)) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "invalid " + HEADER);
+      return;
+    }
+
+    try (TenantContext.Scope scope = TenantContext.enter(tenantId)) {
+      chain.doFilter(request, response);
+    }
+  }
+}
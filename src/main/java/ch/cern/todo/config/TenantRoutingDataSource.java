@@ -0,0 +1,45 @@
+package ch.cern.todo.config;
+
+import ch.cern.todo.utils.TenantContext;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Switches the connections taken for a dedicated tenant to its schema. The pool must reset the
+ * schema of returned connections, which Hikari only does when {@code spring.datasource.hikari.schema}
+ * is set. A transaction keeps its connection, so it stays in the schema of the tenant it started as.
+ */
+public class TenantRoutingDataSource extends DelegatingDataSource {
+
+  private TenantSchemas tenantSchemas;
+
+  public TenantRoutingDataSource(DataSource dataSource, TenantSchemas tenantSchemas) {
+    super(dataSource);
+    this.tenantSchemas = tenantSchemas;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return route(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return route(super.getConnection(username, password));
+  }
+
+  private Connection route(Connection connection) throws SQLException {
+    String schema = tenantSchemas.getSchema(TenantContext.getTenantId());
+    if (schema != null) {
+      try {
+        connection.setSchema(schema);
+      } catch (SQLException | RuntimeException exception) {
+        connection.close();
+        throw exception;
+      }
+    }
+    return connection;
+  }
+}
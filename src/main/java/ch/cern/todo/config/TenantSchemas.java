@@ -0,0 +1,50 @@
+package ch.cern.todo.config;
+
+import static ch.cern.todo.utils.TenantContext.DEFAULT_TENANT;
+
+import ch.cern.todo.utils.TenantContext;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Knows which tenants, listed in {@code todo.tenancy.dedicated-tenants}, have their tables in a
+ * schema of their own rather than in the shared one. Their connections are switched to that schema
+ * by the {@link TenantRoutingDataSource}. Id and change version sequences stay in the shared schema,
+ * so ids are unique across all schemas.
+ */
+@Component
+public class TenantSchemas {
+
+  /** Where Flyway creates the tables of every other tenant and all the sequences. */
+  public static final String SHARED_SCHEMA = "public";
+  public static final String SCHEMA_PREFIX = "tenant_";
+
+  private List<String> dedicatedTenants;
+
+  public TenantSchemas(@Value("${todo.tenancy.dedicated-tenants:}") List<String> dedicatedTenants) {
+    for (String tenantId : dedicatedTenants) {
+      if (!TenantContext.isValid(tenantId) || DEFAULT_TENANT.equals(tenantId))
+        throw new IllegalArgumentException("invalid dedicated tenant " + tenantId);
+    }
+    this.dedicatedTenants = List.copyOf(dedicatedTenants);
+  }
+
+  public List<String> getDedicatedTenants() {
+    return dedicatedTenants;
+  }
+
+  /** The schema of {@code tenantId}, or {@code null} if its tables are in the shared schema. */
+  public String getSchema(String tenantId) {
+    return dedicatedTenants.contains(tenantId) ? SCHEMA_PREFIX + tenantId : null;
+  }
+
+  /**
+   * Runs {@code task} once for the shared schema and once for every dedicated schema, for jobs
+   * that read the rows of all tenants. Each run must use its own connection.
+   */
+  public void forEachSchema(Runnable task) {
+    TenantContext.runAs(DEFAULT_TENANT, task);
+    dedicatedTenants.forEach(tenantId -> TenantContext.runAs(tenantId, task));
+  }
+}
@@ -0,0 +1,50 @@
+package ch.cern.todo.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Opt-in execution mode ({@code todo.execution.virtual-threads=true}) that runs Tomcat requests
+ * and MVC async work, such as the streaming endpoints, on virtual threads instead of the fixed
+ * platform thread pool. Needs a Java 21 runtime; the executor is looked up reflectively so the
+ * code still compiles against Java 11.
+ */
+@Configuration
+@ConditionalOnProperty(name = "todo.execution.virtual-threads", havingValue = "true")
+public class VirtualThreadConfiguration implements WebMvcConfigurer {
+
+  private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+  }
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    configurer.setTaskExecutor(new TaskExecutorAdapter(virtualThreadExecutor));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    virtualThreadExecutor.shutdown();
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException exception) {
+      throw new IllegalStateException("Virtual threads require a Java 21 runtime, found " + Runtime.version(), exception);
+    } catch (ReflectiveOperationException exception) {
+      throw new IllegalStateException("Could not create the virtual thread executor", exception);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package ch.cern.todo.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResultDto {
+  private Integer index;
+  private Integer id;
+  private Integer status;
+  private String error;
+
+  public static BulkResultDto success(int index, Integer id, HttpStatus status) {
+    return BulkResultDto.builder()
+        .index(index)
+        .id(id)
+        .status(status.value())
+        .build();
+  }
+
+  public static BulkResultDto failure(int index, Integer id, HttpStatus status, String error) {
+    return BulkResultDto.builder()
+        .index(index)
+        .id(id)
+        .status(status.value())
+        .error(error)
+        .build();
+  }
+}
@@ -0,0 +1,29 @@
+package ch.cern.todo.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One committed write, as pushed by {@code GET /tasks/changes}. {@code entity} is {@code task} or
+ * {@code category} and {@code type} is {@code created}, {@code updated} or {@code deleted}; saved
+ * rows carry their new state. Subscribers only get the changes of their own tenant.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDto {
+  private Long sequence;
+  private String entity;
+  private String type;
+  private Integer id;
+  private TaskDto task;
+  private TaskCategoryDto category;
+  @JsonIgnore
+  private String tenantId;
+}
@@ -0,0 +1,25 @@
+package ch.cern.todo.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+public class CollectionVersionDto {
+  private Long count;
+  private Integer maxId;
+  private Long versionSum;
+
+  public static CollectionVersionDto fromCategories(List<TaskCategoryDto> categories) {
+    return CollectionVersionDto.builder()
+        .count((long) categories.size())
+        .maxId(categories.stream().mapToInt(TaskCategoryDto::getCategoryId).max().orElse(0))
+        .versionSum(categories.stream().mapToLong(TaskCategoryDto::getVersion).sum())
+        .build();
+  }
+}
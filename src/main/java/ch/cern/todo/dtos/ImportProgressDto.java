@@ -0,0 +1,35 @@
+package ch.cern.todo.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportProgressDto {
+  private Long line;
+  private String error;
+  private Long imported;
+  private Long failed;
+  private Boolean done;
+
+  public static ImportProgressDto error(long line, String error) {
+    return ImportProgressDto.builder()
+        .line(line)
+        .error(error)
+        .build();
+  }
+
+  public static ImportProgressDto progress(long imported, long failed, boolean done) {
+    return ImportProgressDto.builder()
+        .imported(imported)
+        .failed(failed)
+        .done(done)
+        .build();
+  }
+}
@@ -0,0 +1,25 @@
+package ch.cern.todo.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The writes after a change version, oldest first. Clients apply the saved rows and deletes, then
+ * ask again with {@code since=version}; {@code hasMore} tells whether that would return more
+ * changes right away.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder(toBuilder = true)
+public class SyncDto {
+  private List<TaskCategoryDto> categories;
+  private List<TaskDto> tasks;
+  private List<Integer> deletedCategoryIds;
+  private List<Integer> deletedTaskIds;
+  private Long version;
+  private Boolean hasMore;
+}
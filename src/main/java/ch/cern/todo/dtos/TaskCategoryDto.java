@@ -1,6 +1,13 @@
 package ch.cern.todo.dtos;
 
 import ch.cern.todo.entities.TaskCategory;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -14,12 +21,58 @@ public class TaskCategoryDto {
   private Integer categoryId;
   private String name;
   private String description;
+  @JsonIgnore
+  private Integer version;
+  @JsonIgnore
+  private Timestamp lastModified;
+  @JsonIgnore
+  private Long changeVersion;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long taskCount;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private List<TaskDto> tasks;
+
+  /**
+   * Used by the projections of {@link ch.cern.todo.repository.TaskCategoryRepository}. Hibernate
+   * types timestamp attributes as {@link Date} there, but returns {@link Timestamp}s.
+   */
+  public TaskCategoryDto(Integer categoryId, String name, String description, Integer version,
+      Date lastModified, long changeVersion) {
+    this(categoryId, name, description, version, lastModified, changeVersion, null);
+  }
+
+  public TaskCategoryDto(Integer categoryId, String name, String description, Integer version,
+      Date lastModified, long changeVersion, Long taskCount) {
+    this(categoryId, name, description, version, (Timestamp) lastModified, changeVersion, taskCount, null);
+  }
 
   public static TaskCategoryDto from(TaskCategory taskCategory) {
     return TaskCategoryDto.builder()
         .categoryId(taskCategory.getCategoryId())
         .name(taskCategory.getName())
         .description(taskCategory.getDescription())
+        .version(taskCategory.getVersion())
+        .lastModified(taskCategory.getLastModified())
+        .changeVersion(taskCategory.getChangeVersion())
+        .build();
+  }
+
+  /** Expects the tasks of {@code taskCategory} to be fetched already. */
+  public static TaskCategoryDto withTasks(TaskCategory taskCategory) {
+    List<TaskDto> tasks = taskCategory.getTasks().stream()
+        .map(TaskDto::from)
+        .sorted(Comparator.comparing(TaskDto::getId))
+        .collect(Collectors.toList());
+
+    return TaskCategoryDto.builder()
+        .categoryId(taskCategory.getCategoryId())
+        .name(taskCategory.getName())
+        .description(taskCategory.getDescription())
+        .version(taskCategory.getVersion())
+        .lastModified(taskCategory.getLastModified())
+        .changeVersion(taskCategory.getChangeVersion())
+        .taskCount((long) tasks.size())
+        .tasks(tasks)
         .build();
   }
 }
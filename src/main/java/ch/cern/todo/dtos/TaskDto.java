@@ -1,6 +1,16 @@
 package ch.cern.todo.dtos;
 
+import static ch.cern.todo.utils.DateUtils.parseDateTime;
+
 import ch.cern.todo.entities.Task;
+import ch.cern.todo.utils.DateTimeSerializer;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -15,7 +25,38 @@ public class TaskDto {
   private Integer categoryId;
   private String name;
   private String description;
-  private String deadline;
+  @JsonSerialize(using = DateTimeSerializer.class)
+  private LocalDateTime deadline;
+  /** A deadline that could not be parsed, reported by validation instead of failing the whole request. */
+  @JsonIgnore
+  private String invalidDeadline;
+  @JsonIgnore
+  private Integer version;
+  @JsonIgnore
+  private Timestamp lastModified;
+  @JsonIgnore
+  private Long changeVersion;
+  @JsonIgnore
+  private String tenantId;
+
+  /**
+   * Used by the projections of {@link ch.cern.todo.repository.TaskRepository}. Hibernate types
+   * timestamp attributes as {@link Date} there, but returns {@link Timestamp}s.
+   */
+  public TaskDto(Integer id, Integer categoryId, String name, String description,
+      LocalDateTime deadline, Integer version, Date lastModified, long changeVersion, String tenantId) {
+    this(id, categoryId, name, description, deadline, null, version, (Timestamp) lastModified,
+        Long.valueOf(changeVersion), tenantId);
+  }
+
+  @JsonSetter("deadline")
+  private void setDeadline(String deadline) {
+    try {
+      this.deadline = deadline == null ? null : parseDateTime(deadline);
+    } catch (DateTimeParseException exception) {
+      this.invalidDeadline = deadline;
+    }
+  }
 
   public static TaskDto from(Task task) {
     return TaskDto.builder()
@@ -23,7 +64,11 @@ public class TaskDto {
         .name(task.getName())
         .description(task.getDescription())
         .categoryId(task.getCategory().getCategoryId())
-        .deadline(task.getDeadline().toLocalDateTime().toString())
+        .deadline(task.getDeadline())
+        .version(task.getVersion())
+        .lastModified(task.getLastModified())
+        .changeVersion(task.getChangeVersion())
+        .tenantId(task.getTenantId())
         .build();
   }
 }
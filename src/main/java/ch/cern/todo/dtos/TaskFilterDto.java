@@ -0,0 +1,21 @@
+package ch.cern.todo.dtos;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+public class TaskFilterDto {
+  private Integer categoryId;
+  private LocalDateTime deadlineFrom;
+  private LocalDateTime deadlineTo;
+  private String namePrefix;
+  @Builder.Default
+  private Sort sort = Sort.by("id");
+}
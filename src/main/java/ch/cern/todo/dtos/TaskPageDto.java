@@ -0,0 +1,26 @@
+package ch.cern.todo.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+public class TaskPageDto {
+  private List<TaskDto> tasks;
+  private Integer nextCursor;
+
+  /** {@code tasks} holds up to {@code limit + 1} rows; the extra one only tells that there is a next page. */
+  public static TaskPageDto from(List<TaskDto> tasks, int limit) {
+    boolean hasMore = tasks.size() > limit;
+    List<TaskDto> page = hasMore ? tasks.subList(0, limit) : tasks;
+    return TaskPageDto.builder()
+        .tasks(page)
+        .nextCursor(hasMore ? page.get(limit - 1).getId() : null)
+        .build();
+  }
+}
@@ -0,0 +1,36 @@
+package ch.cern.todo.dtos;
+
+import ch.cern.todo.utils.DateTimeSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+public class TaskReminderDto {
+  private String tenantId;
+  private Integer taskId;
+  private Integer categoryId;
+  private String name;
+  @JsonSerialize(using = DateTimeSerializer.class)
+  private LocalDateTime deadline;
+  @JsonSerialize(using = DateTimeSerializer.class)
+  private LocalDateTime remindAt;
+
+  public static TaskReminderDto from(TaskDto task, Duration leadTime) {
+    return TaskReminderDto.builder()
+        .tenantId(task.getTenantId())
+        .taskId(task.getId())
+        .categoryId(task.getCategoryId())
+        .name(task.getName())
+        .deadline(task.getDeadline())
+        .remindAt(task.getDeadline().minus(leadTime))
+        .build();
+  }
+}
@@ -0,0 +1,21 @@
+package ch.cern.todo.dtos;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One page of search results, best match first. {@code totalHits} is exact up to a thousand
+ * matches and a lower bound beyond that.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+public class TaskSearchResultDto {
+  private List<TaskDto> tasks;
+  private Long totalHits;
+  private Integer nextPage;
+}
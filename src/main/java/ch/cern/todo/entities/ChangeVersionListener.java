@@ -0,0 +1,24 @@
+package ch.cern.todo.entities;
+
+import ch.cern.todo.repository.ChangeVersionSequence;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+
+/**
+ * Gives every inserted or updated {@link ChangeVersioned} entity the next change version. Created
+ * by Spring through Hibernate's bean container, hence the constructor injection.
+ */
+public class ChangeVersionListener {
+
+  private ChangeVersionSequence changeVersionSequence;
+
+  public ChangeVersionListener(ChangeVersionSequence changeVersionSequence) {
+    this.changeVersionSequence = changeVersionSequence;
+  }
+
+  @PrePersist
+  @PreUpdate
+  void assignChangeVersion(Object entity) {
+    ((ChangeVersioned) entity).setChangeVersion(changeVersionSequence.next());
+  }
+}
@@ -0,0 +1,6 @@
+package ch.cern.todo.entities;
+
+/** Entities whose writes are numbered for delta sync, see {@link ChangeVersionListener}. */
+public interface ChangeVersioned {
+  void setChangeVersion(long changeVersion);
+}
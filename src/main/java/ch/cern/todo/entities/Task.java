@@ -1,52 +1,94 @@
 package ch.cern.todo.entities;
 
-import static ch.cern.todo.utils.DateUtils.getSqlTimeStamp;
+import static ch.cern.todo.config.TenantSchemas.SHARED_SCHEMA;
+import static ch.cern.todo.utils.TenantContext.TENANT_ID_LENGTH;
 
 import ch.cern.todo.dtos.TaskDto;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
-@Builder
+@Builder(toBuilder = true)
 @Entity
-public class Task {
+@EntityListeners({ChangeVersionListener.class, TenantListener.class})
+@Table(indexes = {
+    @Index(name = "idx_task_tenant_id", columnList = "tenantId, id"),
+    @Index(name = "idx_task_tenant_category_deadline", columnList = "tenantId, categoryId, deadline"),
+    @Index(name = "idx_task_tenant_deadline", columnList = "tenantId, deadline"),
+    @Index(name = "idx_task_tenant_change_version", columnList = "tenantId, changeVersion"),
+    @Index(name = "idx_task_deadline", columnList = "deadline")
+})
+public class Task implements ChangeVersioned, TenantOwned {
+
+  public static final int NAME_LENGTH = 100;
+  public static final int DESCRIPTION_LENGTH = 500;
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+  @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", schema = SHARED_SCHEMA, allocationSize = 50)
   private Integer id;
 
+  @Setter
+  @Column(nullable = false, updatable = false, length = TENANT_ID_LENGTH)
+  private String tenantId;
+
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "categoryId")
   private TaskCategory category;
 
-  @Column(nullable = false, length = 100)
+  @Column(nullable = false, length = NAME_LENGTH)
   private String name;
 
-  @Column(length = 500)
+  @Column(length = DESCRIPTION_LENGTH)
   private String description;
 
   @Column(nullable = false)
-  private Timestamp deadline;
+  private LocalDateTime deadline;
+
+  @Version
+  private int version;
+
+  @Column(nullable = false)
+  private Timestamp lastModified;
+
+  @Setter
+  @Column(nullable = false)
+  private long changeVersion;
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    lastModified = new Timestamp(System.currentTimeMillis());
+  }
 
   public static Task from(TaskDto taskDto) {
     TaskBuilder builder = Task.builder()
         .name(taskDto.getName())
         .category(TaskCategory.from(taskDto.getCategoryId()))
         .description(taskDto.getDescription())
-        .deadline(getSqlTimeStamp(taskDto.getDeadline()));
+        .deadline(taskDto.getDeadline());
 
     if (taskDto.getId() != null) {
       builder.id(taskDto.getId());
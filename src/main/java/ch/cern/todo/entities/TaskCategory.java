@@ -1,38 +1,82 @@
 package ch.cern.todo.entities;
 
+import static ch.cern.todo.config.TenantSchemas.SHARED_SCHEMA;
+import static ch.cern.todo.utils.TenantContext.TENANT_ID_LENGTH;
+
 import ch.cern.todo.dtos.TaskCategoryDto;
+import java.sql.Timestamp;
 import java.util.Set;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
-@Builder
+@Builder(toBuilder = true)
 @Entity
-public class TaskCategory {
+@EntityListeners({ChangeVersionListener.class, TenantListener.class})
+@Table(
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_task_category_tenant_name", columnNames = {"tenantId", "name"}),
+        @UniqueConstraint(name = "uk_task_category_tenant_id", columnNames = {"tenantId", "categoryId"})
+    },
+    indexes = @Index(name = "idx_task_category_tenant_change_version", columnList = "tenantId, changeVersion"))
+public class TaskCategory implements ChangeVersioned, TenantOwned {
+
+  public static final int NAME_LENGTH = 100;
+  public static final int DESCRIPTION_LENGTH = 500;
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_category_seq")
+  @SequenceGenerator(name = "task_category_seq", sequenceName = "task_category_seq", schema = SHARED_SCHEMA, allocationSize = 50)
   private Integer categoryId;
 
-  @Column(nullable = false, length = 100, unique = true)
+  @Setter
+  @Column(nullable = false, updatable = false, length = TENANT_ID_LENGTH)
+  private String tenantId;
+
+  @Column(nullable = false, length = NAME_LENGTH)
   private String name;
 
-  @Column(length = 500)
+  @Column(length = DESCRIPTION_LENGTH)
   private String description;
 
   @OneToMany(mappedBy = "category")
   private Set<Task> tasks;
 
+  @Version
+  private int version;
+
+  @Column(nullable = false)
+  private Timestamp lastModified;
+
+  @Setter
+  @Column(nullable = false)
+  private long changeVersion;
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    lastModified = new Timestamp(System.currentTimeMillis());
+  }
+
   public static TaskCategory from(Integer id) {
     return TaskCategory.builder()
         .categoryId(id).build();
@@ -0,0 +1,14 @@
+package ch.cern.todo.entities;
+
+import ch.cern.todo.utils.TenantContext;
+import javax.persistence.PrePersist;
+
+/** Gives every inserted {@link TenantOwned} entity that has no tenant yet the current one. */
+public class TenantListener {
+
+  @PrePersist
+  void assignTenant(Object entity) {
+    TenantOwned owned = (TenantOwned) entity;
+    if (owned.getTenantId() == null) owned.setTenantId(TenantContext.getTenantId());
+  }
+}
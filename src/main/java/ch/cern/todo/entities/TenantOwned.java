@@ -0,0 +1,8 @@
+package ch.cern.todo.entities;
+
+/** Entities that belong to a tenant, see {@link TenantListener}. */
+public interface TenantOwned {
+  String getTenantId();
+
+  void setTenantId(String tenantId);
+}
@@ -0,0 +1,69 @@
+package ch.cern.todo.entities;
+
+import static ch.cern.todo.config.TenantSchemas.SHARED_SCHEMA;
+import static ch.cern.todo.utils.TenantContext.TENANT_ID_LENGTH;
+
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Records a deleted task or category, so that delta sync can report the delete. */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Builder
+@Entity
+@EntityListeners({ChangeVersionListener.class, TenantListener.class})
+@Table(indexes = @Index(name = "idx_tombstone_tenant_change_version", columnList = "tenantId, changeVersion"))
+public class Tombstone implements ChangeVersioned, TenantOwned {
+
+  public static final String TASK = "task";
+  public static final String CATEGORY = "category";
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tombstone_seq")
+  @SequenceGenerator(name = "tombstone_seq", sequenceName = "tombstone_seq", schema = SHARED_SCHEMA, allocationSize = 50)
+  private Long id;
+
+  @Setter
+  @Column(nullable = false, updatable = false, length = TENANT_ID_LENGTH)
+  private String tenantId;
+
+  @Column(nullable = false, length = 20)
+  private String entityType;
+
+  @Column(nullable = false)
+  private Integer entityId;
+
+  @Setter
+  @Column(nullable = false)
+  private long changeVersion;
+
+  @Column(nullable = false)
+  private Timestamp deletedAt;
+
+  @PrePersist
+  void touch() {
+    deletedAt = new Timestamp(System.currentTimeMillis());
+  }
+
+  public static Tombstone from(String entityType, Integer entityId) {
+    return Tombstone.builder()
+        .entityType(entityType)
+        .entityId(entityId)
+        .build();
+  }
+}
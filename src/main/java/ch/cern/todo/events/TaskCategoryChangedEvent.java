@@ -0,0 +1,24 @@
+package ch.cern.todo.events;
+
+import ch.cern.todo.dtos.TaskCategoryDto;
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** The {@link ch.cern.todo.service.TaskCategoryService} counterpart of {@link TaskChangedEvent}. */
+@AllArgsConstructor
+@Getter
+public class TaskCategoryChangedEvent {
+  private String tenantId;
+  private List<TaskCategoryDto> savedCategories;
+  private List<Integer> deletedIds;
+
+  public static TaskCategoryChangedEvent saved(String tenantId, TaskCategoryDto category) {
+    return new TaskCategoryChangedEvent(tenantId, List.of(category), Collections.emptyList());
+  }
+
+  public static TaskCategoryChangedEvent deleted(String tenantId, Integer id) {
+    return new TaskCategoryChangedEvent(tenantId, Collections.emptyList(), List.of(id));
+  }
+}
@@ -0,0 +1,28 @@
+package ch.cern.todo.events;
+
+import ch.cern.todo.dtos.TaskDto;
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by {@link ch.cern.todo.service.TaskService} whenever tasks are written. Listeners that
+ * maintain derived state should use {@code @TransactionalEventListener} so that they only see
+ * committed changes.
+ */
+@AllArgsConstructor
+@Getter
+public class TaskChangedEvent {
+  private String tenantId;
+  private List<TaskDto> savedTasks;
+  private List<Integer> deletedIds;
+
+  public static TaskChangedEvent saved(String tenantId, List<TaskDto> tasks) {
+    return new TaskChangedEvent(tenantId, tasks, Collections.emptyList());
+  }
+
+  public static TaskChangedEvent deleted(String tenantId, List<Integer> ids) {
+    return new TaskChangedEvent(tenantId, Collections.emptyList(), ids);
+  }
+}
@@ -0,0 +1,20 @@
+package ch.cern.todo.reminders;
+
+import ch.cern.todo.dtos.TaskReminderDto;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "todo.reminders.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingReminderSink implements ReminderSink {
+
+  @Override
+  public void send(List<TaskReminderDto> reminders) {
+    for (TaskReminderDto reminder : reminders) {
+      log.info("Task {} '{}' is due at {}", reminder.getTaskId(), reminder.getName(), reminder.getDeadline());
+    }
+  }
+}
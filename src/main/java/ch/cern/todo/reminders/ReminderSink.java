@@ -0,0 +1,12 @@
+package ch.cern.todo.reminders;
+
+import ch.cern.todo.dtos.TaskReminderDto;
+import java.util.List;
+
+/**
+ * Receives the reminders that fall due on one tick of {@link ch.cern.todo.service.TaskReminderService}.
+ * Called from the scheduler thread, so implementations should not block for long.
+ */
+public interface ReminderSink {
+  void send(List<TaskReminderDto> reminders);
+}
@@ -0,0 +1,35 @@
+package ch.cern.todo.reminders;
+
+import ch.cern.todo.dtos.TaskReminderDto;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/** POSTs each batch of reminders as a JSON array to {@code todo.reminders.webhook-url}. */
+@Component
+@ConditionalOnProperty(name = "todo.reminders.sink", havingValue = "webhook")
+public class WebhookReminderSink implements ReminderSink {
+
+  private RestTemplate restTemplate;
+  private String url;
+
+  public WebhookReminderSink(
+      RestTemplateBuilder restTemplateBuilder,
+      @Value("${todo.reminders.webhook-url}") String url,
+      @Value("${todo.reminders.webhook-timeout:PT5S}") Duration timeout) {
+    this.restTemplate = restTemplateBuilder
+        .setConnectTimeout(timeout)
+        .setReadTimeout(timeout)
+        .build();
+    this.url = url;
+  }
+
+  @Override
+  public void send(List<TaskReminderDto> reminders) {
+    restTemplate.postForLocation(url, reminders);
+  }
+}
@@ -0,0 +1,83 @@
+package ch.cern.todo.repository;
+
+import static ch.cern.todo.config.TenantSchemas.SHARED_SCHEMA;
+
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import javax.sql.DataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out the change versions of tasks, categories and tombstones. Versions come from the
+ * {@code change_version_seq} database sequence in blocks of {@link #ALLOCATION_SIZE}, so most
+ * writes do not need a round trip for them. The sequence is always read from the shared schema, as
+ * the connection may be switched to the schema of a dedicated tenant.
+ *
+ * <p>Versions are taken at flush time but become visible at commit, so a transaction holding a
+ * lower version may still commit after one holding a higher version. {@link #getStableVersion()}
+ * is therefore the highest version below which every transaction of this instance has finished;
+ * delta sync never reads past it.
+ */
+@Component
+public class ChangeVersionSequence {
+
+  public static final int ALLOCATION_SIZE = 50;
+
+  private JdbcTemplate jdbcTemplate;
+
+  private final NavigableSet<Long> openTransactions = new TreeSet<>();
+  private long next;
+  private long limit;
+  private long lastAllocated;
+
+  /** Takes the data source rather than the shared JdbcTemplate, which depends on the entity manager factory. */
+  public ChangeVersionSequence(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  public synchronized long next() {
+    if (next == limit) allocate();
+    long version = next++;
+    lastAllocated = version;
+    trackTransaction(version);
+    return version;
+  }
+
+  public synchronized long getStableVersion() {
+    if (limit == 0) allocate();
+    return openTransactions.isEmpty() ? lastAllocated : openTransactions.first() - 1;
+  }
+
+  /** Versions from earlier runs are all below the first block this instance gets. */
+  private void allocate() {
+    long start = jdbcTemplate.queryForObject(
+        "SELECT NEXTVAL('" + SHARED_SCHEMA + ".change_version_seq')", Long.class);
+    if (limit == 0) lastAllocated = start - 1;
+    next = start;
+    limit = start + ALLOCATION_SIZE;
+  }
+
+  /**
+   * Versions only grow, so the first version of a transaction is its lowest; that is the only one
+   * that needs to be held until the transaction completes.
+   */
+  private void trackTransaction(long version) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+    if (TransactionSynchronizationManager.hasResource(this)) return;
+
+    TransactionSynchronizationManager.bindResource(this, version);
+    openTransactions.add(version);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(ChangeVersionSequence.this);
+        synchronized (ChangeVersionSequence.this) {
+          openTransactions.remove(version);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,56 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.entities.ChangeVersioned;
+import ch.cern.todo.entities.TenantOwned;
+import java.sql.Timestamp;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes only the changed attributes of one row, without loading it first: a single
+ * {@code UPDATE ... SET <changes> WHERE tenant_id = ? AND id = ? [AND version = ?]} that also bumps the optimistic
+ * lock version, stamps {@code lastModified} and assigns a new change version. Concurrent updates of
+ * different attributes therefore no longer overwrite each other. Entity listeners and the
+ * persistence context are bypassed, so callers re-read the row when they need it.
+ */
+@Repository
+public class PartialUpdateRepository {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private ChangeVersionSequence changeVersionSequence;
+
+  public PartialUpdateRepository(ChangeVersionSequence changeVersionSequence) {
+    this.changeVersionSequence = changeVersionSequence;
+  }
+
+  /**
+   * Returns {@code false} when the tenant has no row with that id or, if {@code expectedVersion} is set,
+   * when the row has another version.
+   */
+  public <T extends ChangeVersioned & TenantOwned> boolean update(Class<T> entityType, String tenantId,
+      String idAttribute, Object id, Integer expectedVersion, Map<String, Object> changes) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaUpdate<T> update = builder.createCriteriaUpdate(entityType);
+    Root<T> root = update.from(entityType);
+
+    changes.forEach(update::set);
+    update.set(root.<Integer>get("version"), builder.sum(root.<Integer>get("version"), 1));
+    update.set("lastModified", new Timestamp(System.currentTimeMillis()));
+    update.set("changeVersion", changeVersionSequence.next());
+
+    Predicate where = builder.and(
+        builder.equal(root.get("tenantId"), tenantId), builder.equal(root.get(idAttribute), id));
+    if (expectedVersion != null) where = builder.and(where, builder.equal(root.get("version"), expectedVersion));
+    update.where(where);
+
+    return entityManager.createQuery(update).executeUpdate() == 1;
+  }
+}
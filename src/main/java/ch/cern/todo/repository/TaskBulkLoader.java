@@ -0,0 +1,137 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.entities.Task;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Inserts new tasks without going through the persistence context: on PostgreSQL the rows are
+ * streamed with {@code COPY ... FROM STDIN}, on other databases they are sent as JDBC batches.
+ * Ids come from Hibernate's own generator for {@link Task} and change versions from the
+ * {@link ChangeVersionSequence}, so the rows look exactly like ones Hibernate persisted. Must run
+ * inside a transaction; no entity listeners are called.
+ */
+@Repository
+public class TaskBulkLoader {
+
+  private static final String COLUMNS =
+      "id, category_id, name, description, deadline, version, last_modified, change_version, tenant_id";
+  private static final String INSERT = "INSERT INTO task (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String COPY = "COPY task (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  private JdbcTemplate jdbcTemplate;
+  private ChangeVersionSequence changeVersionSequence;
+  private int batchSize;
+
+  public TaskBulkLoader(
+      JdbcTemplate jdbcTemplate,
+      ChangeVersionSequence changeVersionSequence,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.changeVersionSequence = changeVersionSequence;
+    this.batchSize = batchSize;
+  }
+
+  /** Returns the inserted tasks of {@code tenantId}, in order, with their id and versions set. */
+  public List<TaskDto> insert(String tenantId, List<TaskDto> taskDtos) {
+    if (taskDtos.isEmpty()) return List.of();
+
+    List<TaskDto> tasks = assignIds(tenantId, taskDtos);
+    jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      if (connection.isWrapperFor(PGConnection.class)) copy(connection.unwrap(PGConnection.class), tasks);
+      else batchInsert(connection, tasks);
+      return null;
+    });
+    return tasks;
+  }
+
+  private List<TaskDto> assignIds(String tenantId, List<TaskDto> taskDtos) {
+    SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    IdentifierGenerator idGenerator = session.getFactory().getIdentifierGenerator(Task.class.getName());
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+
+    List<TaskDto> tasks = new ArrayList<>(taskDtos.size());
+    for (TaskDto taskDto : taskDtos) {
+      tasks.add(TaskDto.builder()
+          .id((Integer) idGenerator.generate(session, null))
+          .categoryId(taskDto.getCategoryId())
+          .name(taskDto.getName())
+          .description(taskDto.getDescription())
+          .deadline(taskDto.getDeadline())
+          .version(0)
+          .lastModified(now)
+          .changeVersion(changeVersionSequence.next())
+          .tenantId(tenantId)
+          .build());
+    }
+    return tasks;
+  }
+
+  private void batchInsert(Connection connection, List<TaskDto> tasks) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+      for (int index = 0; index < tasks.size(); index++) {
+        TaskDto task = tasks.get(index);
+        statement.setInt(1, task.getId());
+        statement.setInt(2, task.getCategoryId());
+        statement.setString(3, task.getName());
+        if (task.getDescription() != null) statement.setString(4, task.getDescription());
+        else statement.setNull(4, Types.VARCHAR);
+        statement.setTimestamp(5, Timestamp.valueOf(task.getDeadline()));
+        statement.setInt(6, task.getVersion());
+        statement.setTimestamp(7, task.getLastModified());
+        statement.setLong(8, task.getChangeVersion());
+        statement.setString(9, task.getTenantId());
+        statement.addBatch();
+        if ((index + 1) % batchSize == 0) statement.executeBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  private void copy(PGConnection connection, List<TaskDto> tasks) throws SQLException {
+    StringBuilder csv = new StringBuilder(tasks.size() * 128);
+    for (TaskDto task : tasks) {
+      csv.append(task.getId()).append(',')
+          .append(task.getCategoryId()).append(',');
+      appendQuoted(csv, task.getName()).append(',');
+      if (task.getDescription() != null) appendQuoted(csv, task.getDescription());
+      csv.append(',')
+          .append(Timestamp.valueOf(task.getDeadline())).append(',')
+          .append(task.getVersion()).append(',')
+          .append(task.getLastModified()).append(',')
+          .append(task.getChangeVersion()).append(',')
+          .append(task.getTenantId()).append('\n');
+    }
+    try {
+      connection.getCopyAPI().copyIn(COPY, new StringReader(csv.toString()));
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  /** An unquoted empty field is NULL in CSV, so every string is quoted. */
+  private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+    return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+  }
+}
@@ -1,8 +1,65 @@
 package ch.cern.todo.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import ch.cern.todo.dtos.TaskCategoryDto;
 import ch.cern.todo.entities.TaskCategory;
-import org.springframework.data.repository.CrudRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TaskCategoryRepository extends CrudRepository<TaskCategory, Integer> { }
+public interface TaskCategoryRepository extends JpaRepository<TaskCategory, Integer> {
+
+  String CATEGORY_DTO_SELECT = "select new ch.cern.todo.dtos.TaskCategoryDto("
+      + "c.categoryId, c.name, c.description, c.version, c.lastModified, c.changeVersion) "
+      + "from TaskCategory c";
+
+  @Query(CATEGORY_DTO_SELECT + " where c.tenantId = :tenantId order by c.categoryId")
+  List<TaskCategoryDto> findAllDtos(@Param("tenantId") String tenantId);
+
+  @Query(CATEGORY_DTO_SELECT + " where c.tenantId = :tenantId and c.categoryId = :id")
+  Optional<TaskCategoryDto> findDtoById(@Param("tenantId") String tenantId, @Param("id") Integer id);
+
+  @Query(CATEGORY_DTO_SELECT + " where c.tenantId = :tenantId "
+      + "and c.changeVersion > :since and c.changeVersion <= :until order by c.changeVersion")
+  List<TaskCategoryDto> findChangedDtos(@Param("tenantId") String tenantId,
+      @Param("since") long since, @Param("until") long until, Pageable pageable);
+
+  boolean existsByTenantIdAndCategoryId(String tenantId, Integer categoryId);
+
+  @Query("select c.categoryId from TaskCategory c where c.tenantId = :tenantId and c.categoryId in :ids")
+  List<Integer> findExistingIds(@Param("tenantId") String tenantId, @Param("ids") Collection<Integer> ids);
+
+  @Query("select c.categoryId from TaskCategory c where c.tenantId = :tenantId")
+  List<Integer> findAllIds(@Param("tenantId") String tenantId);
+
+  @Query("select new ch.cern.todo.dtos.TaskCategoryDto("
+      + "c.categoryId, c.name, c.description, c.version, c.lastModified, c.changeVersion, count(t)) "
+      + "from TaskCategory c left join c.tasks t "
+      + "where c.tenantId = :tenantId "
+      + "group by c.categoryId, c.name, c.description, c.version, c.lastModified, c.changeVersion "
+      + "order by c.categoryId")
+  List<TaskCategoryDto> findAllWithTaskCounts(@Param("tenantId") String tenantId);
+
+  @QueryHints({
+      @QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"),
+      @QueryHint(name = HINT_READONLY, value = "true")
+  })
+  @Query("select distinct c from TaskCategory c left join fetch c.tasks "
+      + "where c.tenantId = :tenantId order by c.categoryId")
+  List<TaskCategory> findAllWithTasks(@Param("tenantId") String tenantId);
+
+  @Modifying
+  @Query("delete from TaskCategory c where c.tenantId = :tenantId and c.categoryId = :id")
+  int deleteByTenantIdAndCategoryId(@Param("tenantId") String tenantId, @Param("id") Integer id);
+}
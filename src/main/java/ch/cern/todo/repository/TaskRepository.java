@@ -1,8 +1,94 @@
 package ch.cern.todo.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import ch.cern.todo.dtos.CollectionVersionDto;
+import ch.cern.todo.dtos.TaskDto;
 import ch.cern.todo.entities.Task;
-import org.springframework.data.repository.CrudRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TaskRepository extends CrudRepository<Task, Integer> { }
+public interface TaskRepository
+    extends JpaRepository<Task, Integer>, JpaSpecificationExecutor<Task>, TaskRepositoryCustom {
+
+  String TASK_DTO_SELECT = "select new ch.cern.todo.dtos.TaskDto(t.id, t.category.categoryId, "
+      + "t.name, t.description, t.deadline, t.version, t.lastModified, t.changeVersion, t.tenantId) "
+      + "from Task t";
+
+  @Query("select new ch.cern.todo.dtos.CollectionVersionDto(count(t), max(t.id), sum(t.version)) "
+      + "from Task t where t.tenantId = :tenantId")
+  CollectionVersionDto getCollectionVersion(@Param("tenantId") String tenantId);
+
+  boolean existsByTenantIdAndId(String tenantId, Integer id);
+
+  List<Task> findAllByTenantIdAndIdIn(String tenantId, Collection<Integer> ids);
+
+  @Query("select t.id from Task t where t.tenantId = :tenantId and t.id in :ids")
+  List<Integer> findExistingIds(@Param("tenantId") String tenantId, @Param("ids") Collection<Integer> ids);
+
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId order by t.id")
+  List<TaskDto> findAllDtos(@Param("tenantId") String tenantId);
+
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId and t.id = :id")
+  Optional<TaskDto> findDtoById(@Param("tenantId") String tenantId, @Param("id") Integer id);
+
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId and t.id in :ids")
+  List<TaskDto> findDtosByIdIn(@Param("tenantId") String tenantId, @Param("ids") Collection<Integer> ids);
+
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId and t.deadline between :from and :to "
+      + "order by t.deadline, t.id")
+  List<TaskDto> findDtosByDeadlineBetween(@Param("tenantId") String tenantId,
+      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId and t.deadline < :before order by t.deadline, t.id")
+  List<TaskDto> findDtosByDeadlineBefore(
+      @Param("tenantId") String tenantId, @Param("before") LocalDateTime before, Pageable pageable);
+
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId and t.id > :after order by t.id")
+  List<TaskDto> findDtosByIdGreaterThan(
+      @Param("tenantId") String tenantId, @Param("after") Integer after, Pageable pageable);
+
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId "
+      + "and t.changeVersion > :since and t.changeVersion <= :until order by t.changeVersion")
+  List<TaskDto> findChangedDtos(@Param("tenantId") String tenantId,
+      @Param("since") long since, @Param("until") long until, Pageable pageable);
+
+  @Modifying
+  @Query("delete from Task t where t.tenantId = :tenantId and t.id = :id")
+  int deleteByTenantIdAndId(@Param("tenantId") String tenantId, @Param("id") Integer id);
+
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId order by t.id")
+  Stream<TaskDto> streamAllDtos(@Param("tenantId") String tenantId);
+
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+  @Query(TASK_DTO_SELECT + " where t.tenantId = :tenantId and t.id between :from and :to order by t.id")
+  Stream<TaskDto> streamDtosByIdBetween(
+      @Param("tenantId") String tenantId, @Param("from") Integer from, @Param("to") Integer to);
+
+  /** The queries below read the tasks of every tenant in the schema, for jobs that serve all of them. */
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+  @Query(TASK_DTO_SELECT)
+  Stream<TaskDto> streamDtosOfAllTenants();
+
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+  @Query(TASK_DTO_SELECT + " where t.deadline > :after and t.deadline <= :until")
+  Stream<TaskDto> streamDtosOfAllTenantsByDeadlineAfterAndNotAfter(
+      @Param("after") LocalDateTime after, @Param("until") LocalDateTime until);
+
+  @Query(TASK_DTO_SELECT + " where t.id in :ids")
+  List<TaskDto> findDtosOfAllTenantsByIdIn(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,13 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.entities.Task;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface TaskRepositoryCustom {
+
+  /** Selects the tasks matching {@code specification} straight into DTOs, without loading entities. */
+  List<TaskDto> findDtos(Specification<Task> specification, Sort sort);
+}
@@ -0,0 +1,43 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.entities.Task;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<TaskDto> findDtos(Specification<Task> specification, Sort sort) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<TaskDto> query = builder.createQuery(TaskDto.class);
+    Root<Task> task = query.from(Task.class);
+
+    query.select(builder.construct(TaskDto.class,
+        task.get("id"),
+        task.get("category").get("categoryId"),
+        task.get("name"),
+        task.get("description"),
+        task.get("deadline"),
+        task.get("version"),
+        task.get("lastModified"),
+        task.get("changeVersion"),
+        task.get("tenantId")));
+    Predicate predicate = specification.toPredicate(task, query, builder);
+    if (predicate != null) query.where(predicate);
+    query.orderBy(QueryUtils.toOrders(sort, task, builder));
+
+    return entityManager.createQuery(query).getResultList();
+  }
+}
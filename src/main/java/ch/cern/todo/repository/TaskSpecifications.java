@@ -0,0 +1,48 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.dtos.TaskFilterDto;
+import ch.cern.todo.entities.Task;
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.domain.Specification;
+
+public class TaskSpecifications {
+
+  private static final char LIKE_ESCAPE = '\\';
+
+  public static Specification<Task> matching(String tenantId, TaskFilterDto filter) {
+    return Specification.where(belongsTo(tenantId))
+        .and(hasCategory(filter.getCategoryId()))
+        .and(deadlineFrom(filter.getDeadlineFrom()))
+        .and(deadlineTo(filter.getDeadlineTo()))
+        .and(nameStartsWith(filter.getNamePrefix()));
+  }
+
+  public static Specification<Task> belongsTo(String tenantId) {
+    return (task, query, builder) -> builder.equal(task.get("tenantId"), tenantId);
+  }
+
+  public static Specification<Task> hasCategory(Integer categoryId) {
+    if (categoryId == null) return null;
+    return (task, query, builder) ->
+        builder.equal(task.get("category").get("categoryId"), categoryId);
+  }
+
+  public static Specification<Task> deadlineFrom(LocalDateTime from) {
+    if (from == null) return null;
+    return (task, query, builder) -> builder.greaterThanOrEqualTo(task.get("deadline"), from);
+  }
+
+  public static Specification<Task> deadlineTo(LocalDateTime to) {
+    if (to == null) return null;
+    return (task, query, builder) -> builder.lessThanOrEqualTo(task.get("deadline"), to);
+  }
+
+  public static Specification<Task> nameStartsWith(String prefix) {
+    if (prefix == null || prefix.isEmpty()) return null;
+    String pattern = prefix
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_") + "%";
+    return (task, query, builder) -> builder.like(task.get("name"), pattern, LIKE_ESCAPE);
+  }
+}
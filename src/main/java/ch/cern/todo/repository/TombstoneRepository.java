@@ -0,0 +1,18 @@
+package ch.cern.todo.repository;
+
+import ch.cern.todo.entities.Tombstone;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+  @Query("select t from Tombstone t where t.tenantId = :tenantId "
+      + "and t.changeVersion > :since and t.changeVersion <= :until order by t.changeVersion")
+  List<Tombstone> findChanged(@Param("tenantId") String tenantId,
+      @Param("since") long since, @Param("until") long until, Pageable pageable);
+}
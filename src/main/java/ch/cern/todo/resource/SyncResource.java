@@ -0,0 +1,42 @@
+package ch.cern.todo.resource;
+
+import static ch.cern.todo.service.TaskService.DEFAULT_PAGE_LIMIT;
+import static ch.cern.todo.service.TaskService.MAX_PAGE_LIMIT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+
+import ch.cern.todo.dtos.SyncDto;
+import ch.cern.todo.service.SyncService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/sync")
+public class SyncResource {
+
+  private SyncService syncService;
+
+  public SyncResource(SyncService syncService) {
+    this.syncService = syncService;
+  }
+
+  @GetMapping
+  public ResponseEntity getChanges(
+      @RequestParam(defaultValue = "0") long since,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_LIMIT) int limit) {
+    try {
+      if (since < 0 || limit < 1) return ResponseEntity.badRequest().build();
+
+      SyncDto sync = syncService.getChangesSince(since, Math.min(limit, MAX_PAGE_LIMIT));
+      return ResponseEntity.ok(sync);
+    }
+    catch (final Exception exception) {
+      log.error("getChanges failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+}
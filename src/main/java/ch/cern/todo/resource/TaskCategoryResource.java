@@ -1,13 +1,27 @@
 package ch.cern.todo.resource;
 
+import static ch.cern.todo.resource.TaskResource.APPLICATION_MERGE_PATCH_JSON_VALUE;
+import static ch.cern.todo.utils.ETagUtils.getCollectionETag;
+import static ch.cern.todo.utils.ETagUtils.getETag;
+import static ch.cern.todo.utils.ETagUtils.getVersion;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 
+import ch.cern.todo.dtos.CollectionVersionDto;
 import ch.cern.todo.dtos.TaskCategoryDto;
 import ch.cern.todo.service.TaskCategoryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,39 +29,72 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+@Slf4j
 @RestController
 @RequestMapping("/categories")
 public class TaskCategoryResource {
 
+  private static final String INCLUDE_TASKS = "tasks";
+  private static final String INCLUDE_COUNTS = "counts";
+  private static final Set<String> INCLUDES = Set.of(INCLUDE_TASKS, INCLUDE_COUNTS);
+
   private TaskCategoryService taskCategoryService;
+  private ObjectMapper objectMapper;
 
-  public TaskCategoryResource(TaskCategoryService taskCategoryService) {
+  public TaskCategoryResource(TaskCategoryService taskCategoryService, ObjectMapper objectMapper) {
     this.taskCategoryService = taskCategoryService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping("/")
-  public ResponseEntity getCategories() {
+  public ResponseEntity getCategories(WebRequest webRequest) {
     try {
       List<TaskCategoryDto> categories = taskCategoryService.getCategories();
+
+      String eTag = getCollectionETag("categories", CollectionVersionDto.fromCategories(categories));
+      if (webRequest.checkNotModified(eTag)) return null;
       return ResponseEntity.ok(categories);
     }
     catch (final Exception exception) {
+      log.error("getCategories failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @GetMapping(value = "/", params = "include")
+  public ResponseEntity getCategoriesIncluding(@RequestParam Set<String> include) {
+    try {
+      if (!INCLUDES.containsAll(include)) return ResponseEntity.badRequest().build();
+
+      List<TaskCategoryDto> categories = include.contains(INCLUDE_TASKS)
+          ? taskCategoryService.getCategoriesWithTasks()
+          : taskCategoryService.getCategoriesWithTaskCounts();
+      return ResponseEntity.ok(categories);
+    }
+    catch (final Exception exception) {
+      log.error("getCategoriesIncluding failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
 
   @GetMapping("/{categoryId}")
-  public ResponseEntity getCategoryById(@PathVariable int categoryId) {
+  public ResponseEntity getCategoryById(@PathVariable int categoryId, WebRequest webRequest) {
     try {
       TaskCategoryDto category = taskCategoryService.getCategoryById(categoryId);
 
       if (category == null) return ResponseEntity.notFound().build();
+      String eTag = getETag(category.getCategoryId(), category.getVersion());
+      if (webRequest.checkNotModified(eTag, category.getLastModified().getTime())) return null;
       return ResponseEntity.ok(category);
     }
     catch (final Exception exception) {
+      log.error("getCategoryById failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
@@ -61,20 +108,54 @@ public class TaskCategoryResource {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
     }
     catch (final Exception exception) {
+      log.error("createCategory failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
 
   @PatchMapping("/update")
-  public ResponseEntity updateCategory(@RequestBody TaskCategoryDto taskCategoryDto) {
+  public ResponseEntity updateCategory(
+      @RequestBody TaskCategoryDto taskCategoryDto,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     try {
-      TaskCategoryDto createdCategory = taskCategoryService.saveCategory(taskCategoryDto);
+      TaskCategoryDto createdCategory = taskCategoryService.saveCategory(taskCategoryDto, getVersion(ifMatch, taskCategoryDto.getCategoryId()));
       return ResponseEntity.status(HttpStatus.ACCEPTED).body(createdCategory);
 
-    } catch(DataIntegrityViolationException exception) {
+    } catch(DataIntegrityViolationException | IllegalArgumentException exception) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    } catch(EmptyResultDataAccessException exception) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    } catch(OptimisticLockingFailureException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    catch (final Exception exception) {
+      log.error("updateCategory failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  /** JSON Merge Patch of a category, see {@link TaskResource#patchTask}. */
+  @PatchMapping(value = "/{categoryId}", consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity patchCategory(
+      @PathVariable int categoryId,
+      @RequestBody ObjectNode patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    try {
+      Set<String> fields = new HashSet<>();
+      patch.fieldNames().forEachRemaining(fields::add);
+      TaskCategoryDto values = objectMapper.treeToValue(patch, TaskCategoryDto.class);
+
+      TaskCategoryDto category = taskCategoryService.patchCategory(categoryId, values, fields, getVersion(ifMatch, categoryId));
+      return ResponseEntity.ok().eTag(getETag(category.getCategoryId(), category.getVersion())).body(category);
+    } catch(JsonProcessingException | DataIntegrityViolationException | IllegalArgumentException exception) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    } catch(EmptyResultDataAccessException exception) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    } catch(OptimisticLockingFailureException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
     }
     catch (final Exception exception) {
+      log.error("patchCategory failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
@@ -89,6 +170,7 @@ public class TaskCategoryResource {
       return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
     catch (final Exception exception) {
+      log.error("deleteCategory failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
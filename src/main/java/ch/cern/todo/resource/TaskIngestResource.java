@@ -0,0 +1,58 @@
+package ch.cern.todo.resource;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+
+import ch.cern.todo.dtos.BulkResultDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.service.TaskIngestService;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Slf4j
+@RestController
+@RequestMapping("/tasks")
+@ConditionalOnProperty(name = "todo.ingest.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskIngestResource {
+
+  private TaskIngestService taskIngestService;
+
+  public TaskIngestResource(TaskIngestService taskIngestService) {
+    this.taskIngestService = taskIngestService;
+  }
+
+  /**
+   * Without {@code durable} the response is {@code 202 Accepted} as soon as the task is queued;
+   * with it, the response is sent after the group commit and carries the id of the new task.
+   */
+  @PostMapping("/ingest")
+  public CompletableFuture<ResponseEntity> ingestTask(
+      @RequestBody TaskDto taskDto,
+      @RequestParam(defaultValue = "false") boolean durable) {
+    try {
+      CompletableFuture<BulkResultDto> result = taskIngestService.ingest(taskDto, durable);
+      if (result == null && !taskIngestService.isAccepting()) {
+        return completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+      }
+      if (result == null) {
+        return completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build());
+      }
+      if (!durable) return completedFuture(ResponseEntity.status(HttpStatus.ACCEPTED).build());
+
+      return result.thenApply(bulkResult -> ResponseEntity.status(bulkResult.getStatus()).body(bulkResult));
+    }
+    catch (final Exception exception) {
+      log.error("ingestTask failed", exception);
+      return completedFuture(ResponseEntity.status(INTERNAL_SERVER_ERROR).build());
+    }
+  }
+}
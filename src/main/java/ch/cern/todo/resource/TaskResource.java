@@ -1,13 +1,50 @@
 package ch.cern.todo.resource;
 
+import static ch.cern.todo.service.TaskSearchService.MAX_SEARCH_SIZE;
+import static ch.cern.todo.service.TaskSearchService.MAX_SEARCH_WINDOW;
+import static ch.cern.todo.service.TaskService.DEFAULT_PAGE_LIMIT;
+import static ch.cern.todo.service.TaskService.MAX_BULK_SIZE;
+import static ch.cern.todo.service.TaskService.MAX_PAGE_LIMIT;
+import static ch.cern.todo.utils.DateUtils.parseDateTime;
+import static ch.cern.todo.utils.ETagUtils.getETag;
+import static ch.cern.todo.utils.ETagUtils.getVersion;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 
+import ch.cern.todo.dtos.BulkResultDto;
+import ch.cern.todo.dtos.ImportProgressDto;
 import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.dtos.TaskFilterDto;
+import ch.cern.todo.dtos.TaskPageDto;
+import ch.cern.todo.dtos.TaskSearchResultDto;
+import ch.cern.todo.service.ChangeStreamService;
+import ch.cern.todo.service.TaskDeadlineService;
+import ch.cern.todo.service.TaskSearchService;
 import ch.cern.todo.service.TaskService;
+import ch.cern.todo.service.TaskTransferService;
+import ch.cern.todo.utils.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,39 +52,237 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+@Slf4j
 @RestController
 @RequestMapping("/tasks")
 public class TaskResource {
 
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+  public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+  public static final String TEXT_CSV_VALUE = "text/csv";
+  public static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+  public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
   private TaskService taskService;
+  private TaskSearchService taskSearchService;
+  private TaskDeadlineService taskDeadlineService;
+  private ChangeStreamService changeStreamService;
+  private TaskTransferService taskTransferService;
+  private ObjectMapper objectMapper;
 
-  public TaskResource(TaskService taskService) {
+  public TaskResource(
+      TaskService taskService,
+      TaskSearchService taskSearchService,
+      TaskDeadlineService taskDeadlineService,
+      ChangeStreamService changeStreamService,
+      TaskTransferService taskTransferService,
+      ObjectMapper objectMapper) {
     this.taskService = taskService;
+    this.taskSearchService = taskSearchService;
+    this.taskDeadlineService = taskDeadlineService;
+    this.changeStreamService = changeStreamService;
+    this.taskTransferService = taskTransferService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping("/")
-  public ResponseEntity getTasks() {
+  public ResponseEntity getTasks(
+      @RequestParam(required = false) Integer categoryId,
+      @RequestParam(required = false) String deadlineFrom,
+      @RequestParam(required = false) String deadlineTo,
+      @RequestParam(required = false) String namePrefix,
+      @RequestParam(required = false) String sort,
+      WebRequest webRequest) {
     try {
-      List<TaskDto> tasks = taskService.getTasks();
+      TaskFilterDto.TaskFilterDtoBuilder filter = TaskFilterDto.builder()
+          .categoryId(categoryId)
+          .namePrefix(namePrefix);
+
+      if (deadlineFrom != null) filter.deadlineFrom(parseDateTime(deadlineFrom));
+      if (deadlineTo != null) filter.deadlineTo(parseDateTime(deadlineTo));
+      if (sort != null) filter.sort(getDeadlineSort(sort));
+      if (webRequest.checkNotModified(taskService.getTasksETag())) return null;
+
+      List<TaskDto> tasks = taskService.getTasks(filter.build());
       return ResponseEntity.ok(tasks);
+    } catch(DateTimeParseException | IllegalArgumentException exception) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
     }
     catch (final Exception exception) {
+      log.error("getTasks failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
 
+  @GetMapping(value = "/", params = "limit")
+  public ResponseEntity getTasksPage(
+      @RequestParam(defaultValue = "0") Integer after,
+      @RequestParam int limit,
+      WebRequest webRequest) {
+    try {
+      if (limit < 1) return ResponseEntity.badRequest().build();
+      if (webRequest.checkNotModified(taskService.getTasksETag())) return null;
+
+      TaskPageDto page = taskService.getTasksPage(after, Math.min(limit, MAX_PAGE_LIMIT));
+      return ResponseEntity.ok(page);
+    }
+    catch (final Exception exception) {
+      log.error("getTasksPage failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @GetMapping("/search")
+  public ResponseEntity searchTasks(
+      @RequestParam String q,
+      @RequestParam(defaultValue = "0") int page,
+      @RequestParam(defaultValue = "20") int size) {
+    try {
+      if (page < 0 || size < 1 || size > MAX_SEARCH_SIZE) return ResponseEntity.badRequest().build();
+      if ((long) (page + 1) * size > MAX_SEARCH_WINDOW) return ResponseEntity.badRequest().build();
+
+      TaskSearchResultDto result = taskSearchService.search(q, page, size);
+      return ResponseEntity.ok(result);
+    }
+    catch (final Exception exception) {
+      log.error("searchTasks failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @GetMapping("/due")
+  public ResponseEntity getTasksDue(
+      @RequestParam String within,
+      @RequestParam(defaultValue = "" + DEFAULT_PAGE_LIMIT) int limit) {
+    try {
+      Duration duration = Duration.parse(within);
+      if (duration.isNegative() || limit < 1) return ResponseEntity.badRequest().build();
+
+      List<TaskDto> tasks = taskDeadlineService.getTasksDueWithin(duration, Math.min(limit, MAX_PAGE_LIMIT));
+      return ResponseEntity.ok(tasks);
+    } catch(DateTimeException | ArithmeticException exception) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+    catch (final Exception exception) {
+      log.error("getTasksDue failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @GetMapping("/overdue")
+  public ResponseEntity getOverdueTasks(@RequestParam(defaultValue = "" + DEFAULT_PAGE_LIMIT) int limit) {
+    try {
+      if (limit < 1) return ResponseEntity.badRequest().build();
+
+      List<TaskDto> tasks = taskDeadlineService.getOverdueTasks(Math.min(limit, MAX_PAGE_LIMIT));
+      return ResponseEntity.ok(tasks);
+    }
+    catch (final Exception exception) {
+      log.error("getOverdueTasks failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @GetMapping("/stream")
+  public ResponseEntity<StreamingResponseBody> streamTasks(
+      @RequestParam(defaultValue = "ndjson") String format) {
+    boolean asArray = "array".equals(format);
+    if (!asArray && !"ndjson".equals(format)) return ResponseEntity.badRequest().build();
+
+    StreamingResponseBody body = outputStream -> {
+      try (SequenceWriter writer = asArray
+          ? objectMapper.writer().writeValuesAsArray(outputStream)
+          : objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+        taskService.forEachTask(task -> {
+          try {
+            writer.write(task);
+          } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+          }
+        });
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(asArray ? MediaType.APPLICATION_JSON : APPLICATION_NDJSON)
+        .body(asCurrentTenant(body));
+  }
+
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportTasks(
+      @RequestParam(defaultValue = "csv") String format) {
+    boolean csv = "csv".equals(format);
+    if (!csv && !"ndjson".equals(format)) return ResponseEntity.badRequest().build();
+
+    StreamingResponseBody body = outputStream -> {
+      if (csv) taskTransferService.exportCsv(outputStream);
+      else taskTransferService.exportNdjson(outputStream);
+    };
+    return ResponseEntity.ok()
+        .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("tasks." + format).build().toString())
+        .body(asCurrentTenant(body));
+  }
+
+  /**
+   * Reads the body as it arrives and answers with NDJSON: one line per rejected input line, the
+   * totals after every chunk and, last, the totals with {@code "done": true}.
+   */
+  @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+  public ResponseEntity<StreamingResponseBody> importTasks(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+      InputStream input) {
+    boolean csv = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(contentType));
+
+    StreamingResponseBody body = outputStream -> {
+      Consumer<ImportProgressDto> progress = line -> {
+        try {
+          outputStream.write(objectMapper.writeValueAsBytes(line));
+          outputStream.write('\n');
+          outputStream.flush();
+        } catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      };
+      try {
+        if (csv) taskTransferService.importCsv(input, progress);
+        else taskTransferService.importNdjson(input, progress);
+      } catch (final Exception exception) {
+        log.error("importTasks failed", exception);
+        progress.accept(ImportProgressDto.builder().error("import failed").build());
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(APPLICATION_NDJSON)
+        .body(asCurrentTenant(body));
+  }
+
+  /** Server-Sent Events of every committed task and category write, see {@link ChangeStreamService}. */
+  @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> getChanges(
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    return ResponseEntity.ok(changeStreamService.subscribe(lastEventId));
+  }
+
   @GetMapping("/{taskId}")
-  public ResponseEntity getTaskById(@PathVariable int taskId) {
+  public ResponseEntity getTaskById(@PathVariable int taskId, WebRequest webRequest) {
     try {
       TaskDto task = taskService.getTaskById(taskId);
 
       if (task == null) return ResponseEntity.notFound().build();
+      if (webRequest.checkNotModified(getETag(task.getId(), task.getVersion()), task.getLastModified().getTime()))
+        return null;
       return ResponseEntity.ok(task);
     }
     catch (final Exception exception) {
+      log.error("getTaskById failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
@@ -57,24 +292,111 @@ public class TaskResource {
     try {
       TaskDto createdTask = taskService.saveTask(taskDto);
       return ResponseEntity.status(HttpStatus.CREATED).body(createdTask);
-    } catch(DataIntegrityViolationException exception) {
+    } catch(DataIntegrityViolationException | IllegalArgumentException exception) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
     }
     catch (final Exception exception) {
+      log.error("createTask failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
 
+  /** Like {@link #patchTask}, {@code If-Match} makes the update conditional on a version. */
   @PatchMapping("/update")
-  public ResponseEntity updateTask(@RequestBody TaskDto taskDto) {
+  public ResponseEntity updateTask(
+      @RequestBody TaskDto taskDto,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     try {
-      TaskDto createdTask = taskService.saveTask(taskDto);
+      TaskDto createdTask = taskService.saveTask(taskDto, getVersion(ifMatch, taskDto.getId()));
       return ResponseEntity.status(HttpStatus.ACCEPTED).body(createdTask);
 
+    } catch(DataIntegrityViolationException | IllegalArgumentException exception) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    } catch(EmptyResultDataAccessException exception) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    } catch(OptimisticLockingFailureException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    catch (final Exception exception) {
+      log.error("updateTask failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  /**
+   * JSON Merge Patch (RFC 7396): only the fields present in the body are changed, a {@code null}
+   * clears the description. An {@code If-Match} ETag from {@code GET /tasks/{taskId}} makes the
+   * update conditional on the version it names; a task changed in between gives 409.
+   */
+  @PatchMapping(value = "/{taskId}", consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity patchTask(
+      @PathVariable int taskId,
+      @RequestBody ObjectNode patch,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    try {
+      Set<String> fields = new HashSet<>();
+      patch.fieldNames().forEachRemaining(fields::add);
+      TaskDto values = objectMapper.treeToValue(patch, TaskDto.class);
+
+      TaskDto task = taskService.patchTask(taskId, values, fields, getVersion(ifMatch, taskId));
+      return ResponseEntity.ok().eTag(getETag(task.getId(), task.getVersion())).body(task);
+    } catch(JsonProcessingException | DataIntegrityViolationException | IllegalArgumentException exception) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    } catch(EmptyResultDataAccessException exception) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    } catch(OptimisticLockingFailureException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    catch (final Exception exception) {
+      log.error("patchTask failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @PostMapping("/bulk")
+  public ResponseEntity createTasks(@RequestBody List<TaskDto> taskDtos) {
+    try {
+      if (taskDtos.size() > MAX_BULK_SIZE) return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+
+      List<BulkResultDto> results = taskService.createTasks(taskDtos);
+      return ResponseEntity.ok(results);
+    } catch(DataIntegrityViolationException exception) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+    catch (final Exception exception) {
+      log.error("createTasks failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @PatchMapping("/bulk")
+  public ResponseEntity updateTasks(@RequestBody List<TaskDto> taskDtos) {
+    try {
+      if (taskDtos.size() > MAX_BULK_SIZE) return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+
+      List<BulkResultDto> results = taskService.updateTasks(taskDtos);
+      return ResponseEntity.ok(results);
     } catch(DataIntegrityViolationException exception) {
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    } catch(OptimisticLockingFailureException exception) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+    catch (final Exception exception) {
+      log.error("updateTasks failed", exception);
+      return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+    }
+  }
+
+  @DeleteMapping("/bulk")
+  public ResponseEntity deleteTasks(@RequestBody List<Integer> taskIds) {
+    try {
+      if (taskIds.size() > MAX_BULK_SIZE) return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+
+      List<BulkResultDto> results = taskService.deleteTasks(taskIds);
+      return ResponseEntity.ok(results);
     }
     catch (final Exception exception) {
+      log.error("deleteTasks failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
@@ -89,7 +411,29 @@ public class TaskResource {
       return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
     catch (final Exception exception) {
+      log.error("deleteTask failed", exception);
       return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
     }
   }
+
+  /** Streaming bodies are written on another thread, which has to work for the tenant of the request. */
+  private static StreamingResponseBody asCurrentTenant(StreamingResponseBody body) {
+    String tenantId = TenantContext.getTenantId();
+    return outputStream -> {
+      try (TenantContext.Scope scope = TenantContext.enter(tenantId)) {
+        body.writeTo(outputStream);
+      }
+    };
+  }
+
+  private Sort getDeadlineSort(String sort) {
+    switch (sort) {
+      case "deadline":
+        return Sort.by("deadline", "id");
+      case "-deadline":
+        return Sort.by(Sort.Order.desc("deadline"), Sort.Order.asc("id"));
+      default:
+        throw new IllegalArgumentException("Unsupported sort: " + sort);
+    }
+  }
 }
@@ -0,0 +1,262 @@
+package ch.cern.todo.service;
+
+import ch.cern.todo.dtos.ChangeDto;
+import ch.cern.todo.dtos.TaskCategoryDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.events.TaskCategoryChangedEvent;
+import ch.cern.todo.events.TaskChangedEvent;
+import ch.cern.todo.utils.TenantContext;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Fans committed task and category writes out to Server-Sent Event subscribers.
+ *
+ * <p>Every change gets a sequence number and is kept in a ring buffer of the last
+ * {@code todo.changes.buffer-size} changes, so a client reconnecting with {@code Last-Event-ID}
+ * gets what it missed. If that is no longer buffered, or the id is from an earlier run, it gets a
+ * {@code reset} event instead and should reload, as does one that missed more changes than fit in
+ * its queue. Writers only ever append to bounded per-subscriber queues; a subscriber whose queue is
+ * full is disconnected and can resume from its last event once it keeps up. A subscriber only gets
+ * the changes of the tenant it subscribed as; sequence numbers are shared by all tenants.
+ */
+@Slf4j
+@Service
+public class ChangeStreamService {
+
+  public static final String TASK = "task";
+  public static final String CATEGORY = "category";
+  public static final String CREATED = "created";
+  public static final String UPDATED = "updated";
+  public static final String DELETED = "deleted";
+  public static final String RESET = "reset";
+
+  private static final ChangeDto HEARTBEAT = new ChangeDto();
+
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+  private final ChangeDto[] ring;
+  private final int subscriberBufferSize;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+  private final ExecutorService senders = Executors.newCachedThreadPool(daemonThreads("task-changes-"));
+  private final ScheduledExecutorService heartbeats =
+      Executors.newSingleThreadScheduledExecutor(daemonThreads("task-changes-heartbeat-"));
+  private long nextSequence = 1;
+
+  public ChangeStreamService(
+      @Value("${todo.changes.buffer-size:10000}") int bufferSize,
+      @Value("${todo.changes.subscriber-buffer-size:2000}") int subscriberBufferSize,
+      @Value("${todo.changes.heartbeat:PT15S}") Duration heartbeat) {
+    this.ring = new ChangeDto[bufferSize];
+    this.subscriberBufferSize = subscriberBufferSize;
+    heartbeats.scheduleWithFixedDelay(() -> subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT)),
+        heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /** Registers a subscriber, replaying the buffered changes after {@code lastEventId} if given. */
+  public SseEmitter subscribe(String lastEventId) {
+    Subscriber subscriber = new Subscriber(new SseEmitter(), TenantContext.getTenantId());
+    synchronized (this) {
+      if (lastEventId != null) replay(subscriber, lastEventId);
+      if (!subscriber.closed) subscribers.add(subscriber);
+    }
+    return subscriber.emitter;
+  }
+
+  public int getSubscriberCount() {
+    return subscribers.size();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTaskChanged(TaskChangedEvent event) {
+    List<ChangeDto> changes = new ArrayList<>();
+    for (TaskDto task : event.getSavedTasks()) {
+      changes.add(ChangeDto.builder().entity(TASK).type(getSavedType(task.getVersion()))
+          .id(task.getId()).task(task).tenantId(event.getTenantId()).build());
+    }
+    for (Integer id : event.getDeletedIds()) {
+      changes.add(ChangeDto.builder().entity(TASK).type(DELETED).id(id).tenantId(event.getTenantId()).build());
+    }
+    publish(changes);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCategoryChanged(TaskCategoryChangedEvent event) {
+    List<ChangeDto> changes = new ArrayList<>();
+    for (TaskCategoryDto category : event.getSavedCategories()) {
+      changes.add(ChangeDto.builder().entity(CATEGORY).type(getSavedType(category.getVersion()))
+          .id(category.getCategoryId()).category(category).tenantId(event.getTenantId()).build());
+    }
+    for (Integer id : event.getDeletedIds()) {
+      changes.add(ChangeDto.builder().entity(CATEGORY).type(DELETED).id(id).tenantId(event.getTenantId()).build());
+    }
+    publish(changes);
+  }
+
+  @PreDestroy
+  public void close() {
+    heartbeats.shutdownNow();
+    subscribers.forEach(Subscriber::close);
+    senders.shutdown();
+  }
+
+  private synchronized void publish(List<ChangeDto> changes) {
+    for (ChangeDto change : changes) {
+      ChangeDto sequenced = change.toBuilder().sequence(nextSequence++).build();
+      ring[(int) (sequenced.getSequence() % ring.length)] = sequenced;
+      subscribers.forEach(subscriber -> {
+        if (subscriber.accepts(sequenced)) subscriber.offer(sequenced);
+      });
+    }
+  }
+
+  private void replay(Subscriber subscriber, String lastEventId) {
+    long lastSequence = parseSequence(lastEventId);
+    long oldestSequence = Math.max(1, nextSequence - ring.length);
+    boolean buffered = lastSequence >= oldestSequence - 1 && lastSequence < nextSequence;
+    List<ChangeDto> missed = new ArrayList<>();
+    for (long sequence = lastSequence + 1; buffered && sequence < nextSequence; sequence++) {
+      ChangeDto change = ring[(int) (sequence % ring.length)];
+      if (subscriber.accepts(change)) missed.add(change);
+      if (missed.size() > subscriberBufferSize) buffered = false;
+    }
+    if (!buffered) {
+      subscriber.offer(ChangeDto.builder().sequence(nextSequence - 1).type(RESET).build());
+      return;
+    }
+    missed.forEach(subscriber::offer);
+  }
+
+  /** Returns -1, which always forces a reset, for ids that are malformed or from another run. */
+  private long parseSequence(String eventId) {
+    int separator = eventId.indexOf('-');
+    if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) return -1;
+    try {
+      return Long.parseLong(eventId.substring(separator + 1));
+    } catch (NumberFormatException exception) {
+      return -1;
+    }
+  }
+
+  private static String getSavedType(Integer version) {
+    return version == null || version == 0 ? CREATED : UPDATED;
+  }
+
+  private static ThreadFactory daemonThreads(String prefix) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * At most one drain of a subscriber runs at a time, on a sender thread, so a slow client only
+   * ever blocks its own sender.
+   */
+  private class Subscriber {
+    private final SseEmitter emitter;
+    private final String tenantId;
+    private final BlockingQueue<ChangeDto> queue = new LinkedBlockingQueue<>(subscriberBufferSize);
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile boolean closed;
+
+    Subscriber(SseEmitter emitter, String tenantId) {
+      this.emitter = emitter;
+      this.tenantId = tenantId;
+      emitter.onCompletion(this::closeCompleted);
+      emitter.onTimeout(this::closeCompleted);
+      emitter.onError(error -> closeCompleted());
+    }
+
+    /** Heartbeats and resets have no tenant and go to everyone. */
+    boolean accepts(ChangeDto change) {
+      return change.getTenantId() == null || change.getTenantId().equals(tenantId);
+    }
+
+    boolean offer(ChangeDto change) {
+      if (closed) return false;
+      if (!queue.offer(change)) {
+        log.warn("Dropping a change subscriber that is more than {} changes behind", subscriberBufferSize);
+        close();
+        return false;
+      }
+      scheduleDrain();
+      return true;
+    }
+
+    void close() {
+      closed = true;
+      subscribers.remove(this);
+      scheduleDrain();
+    }
+
+    private void closeCompleted() {
+      completed.set(true);
+      close();
+    }
+
+    private void scheduleDrain() {
+      if (draining.compareAndSet(false, true)) senders.execute(this::drain);
+    }
+
+    private void drain() {
+      try {
+        ChangeDto change;
+        while (!closed && (change = queue.poll()) != null) send(change);
+      } catch (IOException | RuntimeException exception) {
+        closed = true;
+        subscribers.remove(this);
+      }
+      if (closed) {
+        queue.clear();
+        if (completed.compareAndSet(false, true)) complete();
+        return;
+      }
+      draining.set(false);
+      if (closed || !queue.isEmpty()) scheduleDrain();
+    }
+
+    /** The connection may already be gone, for instance while the server shuts down. */
+    private void complete() {
+      try {
+        emitter.complete();
+      } catch (RuntimeException exception) {
+        log.debug("Could not complete a change subscription", exception);
+      }
+    }
+
+    private void send(ChangeDto change) throws IOException {
+      if (change == HEARTBEAT) {
+        emitter.send(SseEmitter.event().comment("heartbeat"));
+        return;
+      }
+      String name = change.getEntity() == null ? change.getType() : change.getEntity() + "." + change.getType();
+      emitter.send(SseEmitter.event()
+          .id(epoch + "-" + change.getSequence())
+          .name(name)
+          .data(change, MediaType.APPLICATION_JSON));
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package ch.cern.todo.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes the whole H2 database to {@code todo.snapshots.path} as a compressed SQL script every
+ * {@code todo.snapshots.interval} and on shutdown, so an in-memory database survives restarts.
+ * The script goes to a temporary file that then replaces the previous snapshot, so a crash while
+ * writing keeps the last complete one. Restoring is done by
+ * {@link ch.cern.todo.config.DatabaseSnapshotConfiguration} before the schema is touched.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "todo.snapshots.enabled", havingValue = "true")
+public class DatabaseSnapshotService {
+
+  public static final String DEFAULT_PATH = "./snapshots/mydb.zip";
+
+  private JdbcTemplate jdbcTemplate;
+  private Path path;
+  private Duration interval;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "database-snapshots");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public DatabaseSnapshotService(
+      DataSource dataSource,
+      @Value("${todo.snapshots.path:" + DEFAULT_PATH + "}") Path path,
+      @Value("${todo.snapshots.interval:PT5M}") Duration interval) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.path = path;
+    this.interval = interval;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    long intervalMillis = interval.toMillis();
+    scheduler.scheduleWithFixedDelay(this::snapshotQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    scheduler.shutdown();
+    scheduler.awaitTermination(1, TimeUnit.MINUTES);
+    snapshot();
+  }
+
+  public void snapshot() {
+    try {
+      long start = System.nanoTime();
+      Path parent = path.toAbsolutePath().getParent();
+      Files.createDirectories(parent);
+      Path temporary = parent.resolve(path.getFileName() + ".tmp");
+      jdbcTemplate.execute("SCRIPT TO ? COMPRESSION DEFLATE", (PreparedStatementCallback<Boolean>) statement -> {
+        statement.setString(1, temporary.toString());
+        return statement.execute();
+      });
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      log.info("Wrote database snapshot {} in {} ms", path, (System.nanoTime() - start) / 1_000_000);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  /** Loads {@code path} into an empty database, if there is a snapshot there. */
+  public static void restore(DataSource dataSource, Path path) {
+    if (!Files.exists(path)) return;
+    new JdbcTemplate(dataSource).update("RUNSCRIPT FROM ? COMPRESSION DEFLATE", path.toString());
+    log.info("Restored database snapshot {}", path);
+  }
+
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (RuntimeException exception) {
+      log.error("Database snapshot failed", exception);
+    }
+  }
+}
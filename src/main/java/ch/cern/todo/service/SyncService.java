@@ -0,0 +1,102 @@
+package ch.cern.todo.service;
+
+import static ch.cern.todo.config.MetricsConfiguration.SERVICE_TIMER;
+
+import ch.cern.todo.dtos.SyncDto;
+import ch.cern.todo.dtos.TaskCategoryDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.entities.Tombstone;
+import ch.cern.todo.repository.ChangeVersionSequence;
+import ch.cern.todo.repository.TaskCategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TombstoneRepository;
+import ch.cern.todo.utils.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Delta sync over the change versions of tasks, categories and tombstones. Each of the three is
+ * read from its change version index, one row past the limit, and the results are merged, so a
+ * page costs O(limit) whatever the table sizes. Change versions are shared by all tenants, so a
+ * tenant's versions have gaps.
+ */
+@Service
+public class SyncService {
+
+  private TaskRepository taskRepository;
+  private TaskCategoryRepository taskCategoryRepository;
+  private TombstoneRepository tombstoneRepository;
+  private ChangeVersionSequence changeVersionSequence;
+
+  public SyncService(
+      TaskRepository taskRepository,
+      TaskCategoryRepository taskCategoryRepository,
+      TombstoneRepository tombstoneRepository,
+      ChangeVersionSequence changeVersionSequence) {
+    this.taskRepository = taskRepository;
+    this.taskCategoryRepository = taskCategoryRepository;
+    this.tombstoneRepository = tombstoneRepository;
+    this.changeVersionSequence = changeVersionSequence;
+  }
+
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public SyncDto getChangesSince(long since, int limit) {
+    long until = changeVersionSequence.getStableVersion();
+    if (since >= until) return emptySync(since);
+
+    String tenantId = TenantContext.getTenantId();
+    Pageable page = PageRequest.of(0, limit + 1);
+    List<Change> changes = new ArrayList<>();
+    taskRepository.findChangedDtos(tenantId, since, until, page)
+        .forEach(task -> changes.add(new Change(task.getChangeVersion(), task)));
+    taskCategoryRepository.findChangedDtos(tenantId, since, until, page)
+        .forEach(category -> changes.add(new Change(category.getChangeVersion(), category)));
+    tombstoneRepository.findChanged(tenantId, since, until, page)
+        .forEach(tombstone -> changes.add(new Change(tombstone.getChangeVersion(), tombstone)));
+    changes.sort(Comparator.comparingLong(change -> change.version));
+
+    boolean hasMore = changes.size() > limit;
+    List<Change> pageChanges = hasMore ? changes.subList(0, limit) : changes;
+    SyncDto sync = emptySync(hasMore ? pageChanges.get(limit - 1).version : until);
+    for (Change change : pageChanges) {
+      if (change.row instanceof TaskDto) {
+        sync.getTasks().add((TaskDto) change.row);
+      } else if (change.row instanceof TaskCategoryDto) {
+        sync.getCategories().add((TaskCategoryDto) change.row);
+      } else {
+        Tombstone tombstone = (Tombstone) change.row;
+        if (Tombstone.TASK.equals(tombstone.getEntityType())) sync.getDeletedTaskIds().add(tombstone.getEntityId());
+        else sync.getDeletedCategoryIds().add(tombstone.getEntityId());
+      }
+    }
+    return sync.toBuilder().hasMore(hasMore).build();
+  }
+
+  private static SyncDto emptySync(long version) {
+    return SyncDto.builder()
+        .categories(new ArrayList<>())
+        .tasks(new ArrayList<>())
+        .deletedCategoryIds(new ArrayList<>())
+        .deletedTaskIds(new ArrayList<>())
+        .version(version)
+        .hasMore(false)
+        .build();
+  }
+
+  private static class Change {
+    private final long version;
+    private final Object row;
+
+    Change(long version, Object row) {
+      this.version = version;
+      this.row = row;
+    }
+  }
+}
@@ -1,44 +1,165 @@
 package ch.cern.todo.service;
 
+import static ch.cern.todo.config.MetricsConfiguration.SERVICE_TIMER;
+import static ch.cern.todo.config.TenancyConfiguration.TENANT_KEY_GENERATOR;
+import static ch.cern.todo.entities.TaskCategory.DESCRIPTION_LENGTH;
+import static ch.cern.todo.entities.TaskCategory.NAME_LENGTH;
+
 import ch.cern.todo.dtos.TaskCategoryDto;
 import ch.cern.todo.entities.TaskCategory;
+import ch.cern.todo.entities.Tombstone;
+import ch.cern.todo.events.TaskCategoryChangedEvent;
+import ch.cern.todo.repository.PartialUpdateRepository;
 import ch.cern.todo.repository.TaskCategoryRepository;
+import ch.cern.todo.repository.TombstoneRepository;
+import ch.cern.todo.utils.TenantContext;
+import io.micrometer.core.annotation.Timed;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class TaskCategoryService {
 
+  public static final String CATEGORIES_CACHE = "categories";
+  public static final String CATEGORY_CACHE = "category";
+  public static final Set<String> UPDATABLE_FIELDS = Set.of("name", "description");
+
   private TaskCategoryRepository taskCategoryRepository;
+  private TombstoneRepository tombstoneRepository;
+  private PartialUpdateRepository partialUpdateRepository;
+  private ApplicationEventPublisher eventPublisher;
 
+  @Timed(SERVICE_TIMER)
+  @Cacheable(value = CATEGORIES_CACHE, keyGenerator = TENANT_KEY_GENERATOR)
+  @Transactional(readOnly = true)
   public List<TaskCategoryDto> getCategories() {
+    return taskCategoryRepository.findAllDtos(TenantContext.getTenantId());
+  }
+
+  /** Not cached, as task writes change the counts without evicting the category caches. */
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public List<TaskCategoryDto> getCategoriesWithTaskCounts() {
+    return taskCategoryRepository.findAllWithTaskCounts(TenantContext.getTenantId());
+  }
+
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public List<TaskCategoryDto> getCategoriesWithTasks() {
     List<TaskCategoryDto> categories = new ArrayList<>();
-    taskCategoryRepository.findAll().forEach(category -> {
-      categories.add(TaskCategoryDto.from(category));
+    taskCategoryRepository.findAllWithTasks(TenantContext.getTenantId()).forEach(category -> {
+      categories.add(TaskCategoryDto.withTasks(category));
     });
     return categories;
   }
 
+  @Timed(SERVICE_TIMER)
+  @Cacheable(value = CATEGORY_CACHE, keyGenerator = TENANT_KEY_GENERATOR, unless = "#result == null")
+  @Transactional(readOnly = true)
   public TaskCategoryDto getCategoryById(Integer id) {
-    Optional<TaskCategory> category = taskCategoryRepository.findById(id);
-    if (category.isPresent())
-      return TaskCategoryDto.from(category.get());
-    return null;
+    return taskCategoryRepository.findDtoById(TenantContext.getTenantId(), id).orElse(null);
   }
 
-  public TaskCategoryService(TaskCategoryRepository taskCategoryRepository) {
+  public TaskCategoryService(
+      TaskCategoryRepository taskCategoryRepository,
+      TombstoneRepository tombstoneRepository,
+      PartialUpdateRepository partialUpdateRepository,
+      ApplicationEventPublisher eventPublisher) {
     this.taskCategoryRepository = taskCategoryRepository;
+    this.tombstoneRepository = tombstoneRepository;
+    this.partialUpdateRepository = partialUpdateRepository;
+    this.eventPublisher = eventPublisher;
   }
 
+  @Timed(SERVICE_TIMER)
+  @CacheEvict(value = {CATEGORIES_CACHE, CATEGORY_CACHE}, allEntries = true)
+  @Transactional
   public TaskCategoryDto saveCategory(TaskCategoryDto taskCategoryDto) {
-    TaskCategory newCategory = TaskCategory.from(taskCategoryDto);
-    return TaskCategoryDto.from(taskCategoryRepository.save(newCategory));
+    return saveCategory(taskCategoryDto, null);
+  }
+
+  /** Same as {@link TaskService#saveTask}, for categories. */
+  @Timed(SERVICE_TIMER)
+  @CacheEvict(value = {CATEGORIES_CACHE, CATEGORY_CACHE}, allEntries = true)
+  @Transactional
+  public TaskCategoryDto saveCategory(TaskCategoryDto taskCategoryDto, Integer expectedVersion) {
+    Integer id = taskCategoryDto.getCategoryId();
+    if (id != null
+        && (expectedVersion != null || taskCategoryRepository.existsByTenantIdAndCategoryId(TenantContext.getTenantId(), id)))
+      return patchCategory(id, taskCategoryDto, UPDATABLE_FIELDS, expectedVersion);
+
+    TaskCategory newCategory = TaskCategory.from(taskCategoryDto).toBuilder().categoryId(null).build();
+    TaskCategoryDto savedCategory = TaskCategoryDto.from(taskCategoryRepository.saveAndFlush(newCategory));
+    eventPublisher.publishEvent(TaskCategoryChangedEvent.saved(TenantContext.getTenantId(), savedCategory));
+    return savedCategory;
   }
 
+  /** Same as {@link TaskService#patchTask}, for categories. */
+  @Timed(SERVICE_TIMER)
+  @CacheEvict(value = {CATEGORIES_CACHE, CATEGORY_CACHE}, allEntries = true)
+  @Transactional
+  public TaskCategoryDto patchCategory(Integer id, TaskCategoryDto values, Set<String> fields, Integer expectedVersion) {
+    String tenantId = TenantContext.getTenantId();
+    Map<String, Object> changes = getChanges(id, values, fields);
+    if (!changes.isEmpty()
+        && !partialUpdateRepository.update(TaskCategory.class, tenantId, "categoryId", id, expectedVersion, changes)) {
+      if (!taskCategoryRepository.existsByTenantIdAndCategoryId(tenantId, id)) throw new EmptyResultDataAccessException(1);
+      throw new OptimisticLockingFailureException("Category " + id + " does not have version " + expectedVersion);
+    }
+
+    TaskCategoryDto category = taskCategoryRepository.findDtoById(tenantId, id).orElseThrow(() -> new EmptyResultDataAccessException(1));
+    if (changes.isEmpty()) {
+      if (expectedVersion != null && expectedVersion != category.getVersion().intValue())
+        throw new OptimisticLockingFailureException("Category " + id + " does not have version " + expectedVersion);
+    } else {
+      eventPublisher.publishEvent(TaskCategoryChangedEvent.saved(tenantId, category));
+    }
+    return category;
+  }
+
+  @Timed(SERVICE_TIMER)
+  @CacheEvict(value = {CATEGORIES_CACHE, CATEGORY_CACHE}, allEntries = true)
+  @Transactional
   public void deleteCategory(Integer id) {
-    taskCategoryRepository.deleteById(id);
+    String tenantId = TenantContext.getTenantId();
+    if (taskCategoryRepository.deleteByTenantIdAndCategoryId(tenantId, id) == 0)
+      throw new EmptyResultDataAccessException(1);
+    tombstoneRepository.save(Tombstone.from(Tombstone.CATEGORY, id));
+    eventPublisher.publishEvent(TaskCategoryChangedEvent.deleted(tenantId, id));
+  }
+
+  private Map<String, Object> getChanges(Integer id, TaskCategoryDto values, Set<String> fields) {
+    Map<String, Object> changes = new HashMap<>();
+    for (String field : fields) {
+      switch (field) {
+        case "categoryId":
+          if (!id.equals(values.getCategoryId())) throw new IllegalArgumentException("categoryId does not match");
+          break;
+        case "name":
+          if (values.getName() == null) throw new IllegalArgumentException("name is required");
+          if (values.getName().length() > NAME_LENGTH) throw new IllegalArgumentException("name is too long");
+          changes.put("name", values.getName());
+          break;
+        case "description":
+          if (values.getDescription() != null && values.getDescription().length() > DESCRIPTION_LENGTH)
+            throw new IllegalArgumentException("description is too long");
+          changes.put("description", values.getDescription());
+          break;
+        default:
+          throw new IllegalArgumentException("unknown field " + field);
+      }
+    }
+    return changes;
   }
 
 }
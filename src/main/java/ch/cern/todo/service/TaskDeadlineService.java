@@ -0,0 +1,162 @@
+package ch.cern.todo.service;
+
+import static ch.cern.todo.config.MetricsConfiguration.SERVICE_TIMER;
+
+import ch.cern.todo.config.TenantSchemas;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.events.TaskChangedEvent;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.utils.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Answers "due soon" and "overdue" queries from an in-memory skip list of tasks ordered by
+ * deadline. The index is loaded when the application is ready and then kept up to date from
+ * committed {@link TaskChangedEvent}s; until it is warm, or when there are more tasks than
+ * {@code todo.deadlines.max-tasks}, queries fall back to the deadline index of the database.
+ * Each tenant has a skip list of its own; ids are unique across tenants, so they share the id map.
+ */
+@Slf4j
+@Service
+public class TaskDeadlineService {
+
+  private static final Comparator<TaskDto> BY_DEADLINE =
+      Comparator.comparing(TaskDto::getDeadline).thenComparing(TaskDto::getId);
+
+  private TaskService taskService;
+  private TaskRepository taskRepository;
+  private TenantSchemas tenantSchemas;
+  private int maxTasks;
+
+  private final ConcurrentMap<String, NavigableSet<TaskDto>> tasksByTenant = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Integer, TaskDto> tasksById = new ConcurrentHashMap<>();
+  private final Set<Integer> deletedWhileWarming = ConcurrentHashMap.newKeySet();
+  private volatile boolean warm;
+  private volatile boolean full;
+
+  public TaskDeadlineService(
+      TaskService taskService,
+      TaskRepository taskRepository,
+      TenantSchemas tenantSchemas,
+      @Value("${todo.deadlines.max-tasks:1000000}") int maxTasks) {
+    this.taskService = taskService;
+    this.taskRepository = taskRepository;
+    this.tenantSchemas = tenantSchemas;
+    this.maxTasks = maxTasks;
+  }
+
+  @Timed(SERVICE_TIMER)
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    tenantSchemas.forEachSchema(() -> taskService.forEachTaskOfAllTenants(task -> {
+      if (!full && !deletedWhileWarming.contains(task.getId())) load(task);
+    }));
+    deletedWhileWarming.clear();
+    if (full) {
+      log.warn("More than {} tasks, deadline queries will use the database", maxTasks);
+    } else {
+      warm = true;
+      log.info("Indexed {} task deadlines", tasksById.size());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTaskChanged(TaskChangedEvent event) {
+    if (full) return;
+    event.getSavedTasks().forEach(this::put);
+    event.getDeletedIds().forEach(this::remove);
+  }
+
+  /** Tasks with a deadline between now and {@code within} from now, earliest first. */
+  @Timed(SERVICE_TIMER)
+  public List<TaskDto> getTasksDueWithin(Duration within, int limit) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime until = now.plus(within);
+    String tenantId = TenantContext.getTenantId();
+    if (!isWarm()) return taskRepository.findDtosByDeadlineBetween(tenantId, now, until, PageRequest.of(0, limit));
+
+    return getTasksByDeadline(tenantId).subSet(probe(now, Integer.MIN_VALUE), true, probe(until, Integer.MAX_VALUE), true)
+        .stream()
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  /** Tasks whose deadline has passed, most overdue first. */
+  @Timed(SERVICE_TIMER)
+  public List<TaskDto> getOverdueTasks(int limit) {
+    LocalDateTime now = LocalDateTime.now();
+    String tenantId = TenantContext.getTenantId();
+    if (!isWarm()) return taskRepository.findDtosByDeadlineBefore(tenantId, now, PageRequest.of(0, limit));
+
+    return getTasksByDeadline(tenantId).headSet(probe(now, Integer.MIN_VALUE), false)
+        .stream()
+        .limit(limit)
+        .collect(Collectors.toList());
+  }
+
+  public boolean isWarm() {
+    return warm && !full;
+  }
+
+  private void put(TaskDto task) {
+    if (!reserve(task.getId())) return;
+    tasksById.compute(task.getId(), (id, previous) -> {
+      if (previous != null) getTasksByDeadline(previous.getTenantId()).remove(previous);
+      getTasksByDeadline(task.getTenantId()).add(task);
+      return task;
+    });
+  }
+
+  /** Unlike {@link #put}, keeps an entry that was written after the warm-up read the row. */
+  private void load(TaskDto task) {
+    if (!reserve(task.getId())) return;
+    tasksById.compute(task.getId(), (id, previous) -> {
+      if (previous != null && previous.getVersion() >= task.getVersion()) return previous;
+      if (previous != null) getTasksByDeadline(previous.getTenantId()).remove(previous);
+      getTasksByDeadline(task.getTenantId()).add(task);
+      return task;
+    });
+  }
+
+  private void remove(Integer id) {
+    if (!warm) deletedWhileWarming.add(id);
+    tasksById.computeIfPresent(id, (key, previous) -> {
+      getTasksByDeadline(previous.getTenantId()).remove(previous);
+      return null;
+    });
+  }
+
+  /** Gives up on the index, for good, once a new task would take it above {@code maxTasks}. */
+  private boolean reserve(Integer id) {
+    if (tasksById.size() < maxTasks || tasksById.containsKey(id)) return true;
+    full = true;
+    tasksById.clear();
+    tasksByTenant.clear();
+    return false;
+  }
+
+  private NavigableSet<TaskDto> getTasksByDeadline(String tenantId) {
+    return tasksByTenant.computeIfAbsent(tenantId, key -> new ConcurrentSkipListSet<>(BY_DEADLINE));
+  }
+
+  private static TaskDto probe(LocalDateTime deadline, int id) {
+    return TaskDto.builder().deadline(deadline).id(id).build();
+  }
+}
@@ -0,0 +1,370 @@
+package ch.cern.todo.service;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+import ch.cern.todo.dtos.BulkResultDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.utils.BoundedRingQueue;
+import ch.cern.todo.utils.TenantContext;
+import ch.cern.todo.utils.WriteAheadLog;
+import ch.cern.todo.utils.WriteAheadLog.FsyncPolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Write-behind path for high-rate task creation. Tasks are appended to a bounded lock-free
+ * {@link BoundedRingQueue}; {@code todo.ingest.writers} threads take whatever has queued up, up to
+ * {@code todo.ingest.max-batch-size} tasks, and insert it with one {@link TaskService#createTasks}
+ * call, so a burst of requests shares one transaction and one commit. Callers either return as soon
+ * as the task is queued or wait for the future of its group commit. Idle writers park until a task
+ * is queued. Queued tasks are written before the application shuts down.
+ *
+ * <p>Tasks that are acknowledged on enqueue are first appended to a {@link WriteAheadLog} in
+ * {@code todo.ingest.wal.path}, which is checkpointed after every group commit. The tasks that a
+ * crash left in the log are queued again once the application is ready. Tasks acknowledged on group
+ * commit skip the log: a client that saw no response retries them itself.
+ *
+ * <p>A logged task that the database rejects is dropped, but one that fails for any other reason,
+ * such as the database being down, stays pending and is queued again every
+ * {@code todo.ingest.retry-delay}, or replayed on the next start. Delivery is at least once: the
+ * log is checkpointed after the commit, so a crash in between inserts the tasks of that commit
+ * again on replay.
+ *
+ * <p>Every task is written for the tenant that queued it: a batch is split by tenant and each
+ * part committed as that tenant. Log records hold the tenant next to the task; records written
+ * before tenants existed belong to the default tenant.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "todo.ingest.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskIngestService {
+
+  private static final long BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final String TENANT_FIELD = "tenantId";
+  private static final String TASK_FIELD = "task";
+
+  private TaskService taskService;
+  private ObjectMapper objectMapper;
+  private int maxBatchSize;
+  private Duration shutdownTimeout;
+  private Duration retryDelay;
+  private Counter rejected;
+
+  private final BoundedRingQueue<Ingestion> queue;
+  private final WriteAheadLog writeAheadLog;
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "task-ingest-scheduler");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final List<Thread> writers = new ArrayList<>();
+  private final Queue<Thread> idleWriters = new ConcurrentLinkedQueue<>();
+  /** Producers between their {@code accepting} check and their offer, which shutdown waits for. */
+  private final AtomicInteger producers = new AtomicInteger();
+  private volatile boolean accepting = true;
+  private volatile boolean running = true;
+
+  public TaskIngestService(
+      TaskService taskService,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${todo.ingest.queue-capacity:65536}") int queueCapacity,
+      @Value("${todo.ingest.writers:2}") int writerCount,
+      @Value("${todo.ingest.max-batch-size:1000}") int maxBatchSize,
+      @Value("${todo.ingest.shutdown-timeout:PT30S}") Duration shutdownTimeout,
+      @Value("${todo.ingest.retry-delay:PT1S}") Duration retryDelay,
+      @Value("${todo.ingest.wal.enabled:true}") boolean walEnabled,
+      @Value("${todo.ingest.wal.path:./wal}") Path walPath,
+      @Value("${todo.ingest.wal.segment-size:64MB}") DataSize walSegmentSize,
+      @Value("${todo.ingest.wal.fsync:interval}") FsyncPolicy fsyncPolicy,
+      @Value("${todo.ingest.wal.fsync-interval:PT0.1S}") Duration fsyncInterval) throws IOException {
+    this.taskService = taskService;
+    this.objectMapper = objectMapper;
+    this.maxBatchSize = maxBatchSize;
+    this.shutdownTimeout = shutdownTimeout;
+    this.retryDelay = retryDelay;
+    this.queue = new BoundedRingQueue<>(queueCapacity);
+    this.writeAheadLog = walEnabled ? WriteAheadLog.open(walPath, Math.toIntExact(walSegmentSize.toBytes()), fsyncPolicy) : null;
+    this.rejected = meterRegistry.counter("todo.ingest.rejected");
+    Gauge.builder("todo.ingest.queued", queue, BoundedRingQueue::size).register(meterRegistry);
+
+    if (writeAheadLog != null && fsyncPolicy == FsyncPolicy.INTERVAL) {
+      long intervalMillis = fsyncInterval.toMillis();
+      scheduler.scheduleWithFixedDelay(this::sync, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    for (int index = 0; index < writerCount; index++) {
+      Thread writer = new Thread(this::write, "task-ingest-" + index);
+      writer.setDaemon(true);
+      writer.start();
+      writers.add(writer);
+    }
+  }
+
+  /**
+   * Queues a task for the next group commit. Returns {@code null} when the queue is full or the
+   * service is shutting down. Otherwise, when {@code durable} is set, the returned future completes
+   * with the result of the task once its group has committed; when it is not set, the future is
+   * already complete and the outcome is only logged.
+   */
+  public CompletableFuture<BulkResultDto> ingest(TaskDto taskDto, boolean durable) throws IOException {
+    producers.incrementAndGet();
+    try {
+      if (!accepting) return null;
+
+      String tenantId = TenantContext.getTenantId();
+      long sequence = durable || writeAheadLog == null ? -1 : writeAheadLog.append(toRecord(tenantId, taskDto));
+      Ingestion ingestion = new Ingestion(tenantId, taskDto, sequence, durable ? new CompletableFuture<>() : null);
+      if (!offer(ingestion)) {
+        if (sequence >= 0) writeAheadLog.abort(sequence);
+        rejected.increment();
+        return null;
+      }
+      return durable ? ingestion.result : CompletableFuture.completedFuture(null);
+    } finally {
+      producers.decrementAndGet();
+    }
+  }
+
+  /** Queues the tasks that were in the write-ahead log when the application started. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void recover() {
+    if (writeAheadLog == null || writeAheadLog.getRecovered().isEmpty()) return;
+
+    log.info("Replaying {} tasks from the write-ahead log", writeAheadLog.getRecovered().size());
+    for (WriteAheadLog.Record record : writeAheadLog.getRecovered()) {
+      try {
+        Ingestion ingestion = fromRecord(record);
+        while (!offer(ingestion)) LockSupport.parkNanos(BACKOFF_NANOS);
+      } catch (IOException exception) {
+        log.error("Cannot replay write-ahead log record {}", record.getSequence(), exception);
+        writeAheadLog.applied(record.getSequence());
+      }
+    }
+  }
+
+  public boolean isAccepting() {
+    return accepting;
+  }
+
+  /**
+   * Stops taking new tasks and lets the writers commit everything that is already queued. Producers
+   * that passed the {@code accepting} check are waited for, and whatever they queued after the
+   * writers stopped is written here. Durable tasks still queued when the timeout runs out fail.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException, IOException {
+    accepting = false;
+    long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+    while (producers.get() > 0 && System.nanoTime() < deadline) LockSupport.parkNanos(BACKOFF_NANOS);
+    running = false;
+    scheduler.shutdownNow();
+    writers.forEach(LockSupport::unpark);
+    for (Thread writer : writers) {
+      writer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+    }
+    if (writers.stream().anyMatch(Thread::isAlive)) {
+      log.warn("{} queued tasks were not written within {}", queue.size(), shutdownTimeout);
+      Ingestion ingestion;
+      while ((ingestion = queue.poll()) != null) {
+        if (ingestion.result != null) {
+          ingestion.result.complete(BulkResultDto.failure(0, null, SERVICE_UNAVAILABLE, "shutting down"));
+        }
+      }
+      if (writeAheadLog != null) writeAheadLog.close();
+      return;
+    }
+
+    List<Ingestion> batch = new ArrayList<>(maxBatchSize);
+    while (queue.drainTo(batch, maxBatchSize) > 0) {
+      commit(batch);
+      batch.clear();
+    }
+    if (writeAheadLog != null) {
+      writeAheadLog.checkpoint();
+      writeAheadLog.close();
+    }
+  }
+
+  private void write() {
+    List<Ingestion> batch = new ArrayList<>(maxBatchSize);
+    while (true) {
+      if (queue.drainTo(batch, maxBatchSize) == 0) {
+        if (!running) return;
+        awaitTasks();
+        continue;
+      }
+      commit(batch);
+      batch.clear();
+      checkpoint();
+    }
+  }
+
+  /**
+   * Parks until {@link #offer} hands over a task. The writer registers before it checks the queue
+   * for the last time, so an offer either is seen by that check or unparks the writer.
+   */
+  private void awaitTasks() {
+    Thread writer = Thread.currentThread();
+    idleWriters.add(writer);
+    if (queue.isEmpty() && running) LockSupport.park(this);
+    idleWriters.remove(writer);
+  }
+
+  private boolean offer(Ingestion ingestion) {
+    if (!queue.offer(ingestion)) return false;
+    Thread idleWriter = idleWriters.poll();
+    if (idleWriter != null) LockSupport.unpark(idleWriter);
+    return true;
+  }
+
+  private void commit(List<Ingestion> batch) {
+    Map<String, List<Ingestion>> batchesByTenant = new LinkedHashMap<>();
+    for (Ingestion ingestion : batch) {
+      batchesByTenant.computeIfAbsent(ingestion.tenantId, tenantId -> new ArrayList<>()).add(ingestion);
+    }
+    batchesByTenant.forEach((tenantId, tenantBatch) -> TenantContext.runAs(tenantId, () -> commitAsTenant(tenantBatch)));
+  }
+
+  /**
+   * A batch that fails as a whole, for instance because a category was deleted after validation,
+   * is retried task by task so that one bad task does not fail the others. A single task that
+   * violates a constraint is rejected; any other failure is taken to be the database's.
+   */
+  private void commitAsTenant(List<Ingestion> batch) {
+    List<TaskDto> taskDtos = new ArrayList<>(batch.size());
+    for (Ingestion ingestion : batch) taskDtos.add(ingestion.taskDto);
+
+    try {
+      List<BulkResultDto> results = taskService.createTasks(taskDtos);
+      for (int index = 0; index < batch.size(); index++) complete(batch.get(index), results.get(index));
+    } catch (final Exception exception) {
+      if (batch.size() > 1) {
+        for (Ingestion ingestion : batch) commitAsTenant(List.of(ingestion));
+        return;
+      }
+      if (exception instanceof DataIntegrityViolationException) {
+        complete(batch.get(0), BulkResultDto.failure(0, null, BAD_REQUEST, "task rejected by the database"));
+        return;
+      }
+      log.error("ingest failed", exception);
+      complete(batch.get(0), BulkResultDto.failure(0, null, INTERNAL_SERVER_ERROR, "ingest failed"));
+    }
+  }
+
+  /**
+   * A rejected task is not replayed: the log protects queued tasks against a crash or an outage,
+   * not against being invalid.
+   */
+  private void complete(Ingestion ingestion, BulkResultDto bulkResult) {
+    if (ingestion.sequence >= 0) {
+      if (HttpStatus.valueOf(bulkResult.getStatus()).is5xxServerError()) {
+        retry(ingestion);
+        return;
+      }
+      writeAheadLog.applied(ingestion.sequence);
+    }
+    if (ingestion.result != null) {
+      ingestion.result.complete(BulkResultDto.builder()
+          .id(bulkResult.getId())
+          .status(bulkResult.getStatus())
+          .error(bulkResult.getError())
+          .build());
+    } else if (bulkResult.getError() != null) {
+      log.warn("ingested task {} rejected: {}", ingestion.taskDto.getName(), bulkResult.getError());
+    }
+  }
+
+  /**
+   * Leaves the task pending in the log and queues it again after {@code retryDelay}. Once the
+   * service stops, it is left to the replay on the next start.
+   */
+  private void retry(Ingestion ingestion) {
+    if (!running) return;
+    try {
+      scheduler.schedule(() -> {
+        if (running && !offer(ingestion)) retry(ingestion);
+      }, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException exception) {
+      log.debug("Not retrying task {}, the service is stopping", ingestion.sequence);
+    }
+  }
+
+  private byte[] toRecord(String tenantId, TaskDto taskDto) throws IOException {
+    return objectMapper.writeValueAsBytes(Map.of(TENANT_FIELD, tenantId, TASK_FIELD, taskDto));
+  }
+
+  private Ingestion fromRecord(WriteAheadLog.Record record) throws IOException {
+    JsonNode payload = objectMapper.readTree(record.getPayload());
+    if (!payload.has(TASK_FIELD)) {
+      TaskDto taskDto = objectMapper.treeToValue(payload, TaskDto.class);
+      return new Ingestion(TenantContext.DEFAULT_TENANT, taskDto, record.getSequence(), null);
+    }
+    String tenantId = payload.path(TENANT_FIELD).asText();
+    if (!TenantContext.isValid(tenantId)) throw new IOException("invalid tenant " + tenantId);
+    TaskDto taskDto = objectMapper.treeToValue(payload.get(TASK_FIELD), TaskDto.class);
+    return new Ingestion(tenantId, taskDto, record.getSequence(), null);
+  }
+
+  private void checkpoint() {
+    if (writeAheadLog == null) return;
+    try {
+      writeAheadLog.checkpoint();
+    } catch (final Exception exception) {
+      log.error("checkpoint failed", exception);
+    }
+  }
+
+  private void sync() {
+    try {
+      writeAheadLog.sync();
+    } catch (final Exception exception) {
+      log.error("sync failed", exception);
+    }
+  }
+
+  private static class Ingestion {
+    private final String tenantId;
+    private final TaskDto taskDto;
+    private final long sequence;
+    private final CompletableFuture<BulkResultDto> result;
+
+    private Ingestion(String tenantId, TaskDto taskDto, long sequence, CompletableFuture<BulkResultDto> result) {
+      this.tenantId = tenantId;
+      this.taskDto = taskDto;
+      this.sequence = sequence;
+      this.result = result;
+    }
+  }
+}
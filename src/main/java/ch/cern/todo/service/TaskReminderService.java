@@ -0,0 +1,179 @@
+package ch.cern.todo.service;
+
+import ch.cern.todo.config.TenantSchemas;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.dtos.TaskReminderDto;
+import ch.cern.todo.events.TaskChangedEvent;
+import ch.cern.todo.reminders.ReminderSink;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.utils.TimingWheel;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Sends a reminder to the {@link ReminderSink} {@code todo.reminders.lead-time} before each task
+ * deadline. Only the deadlines of the next {@code todo.reminders.horizon} are kept in the
+ * {@link TimingWheel}, which is topped up from the database every half horizon, so memory is
+ * bounded by the number of reminders due within the horizon rather than by the table size. Due
+ * tasks are re-read before sending, which makes stale timers from a racing load harmless. One
+ * wheel serves every tenant; loads and re-reads go through each tenant schema in turn.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "todo.reminders.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskReminderService {
+
+  private static final int DISPATCH_BATCH_SIZE = 1000;
+
+  private TaskService taskService;
+  private TaskRepository taskRepository;
+  private TenantSchemas tenantSchemas;
+  private ReminderSink reminderSink;
+  private Duration leadTime;
+  private Duration horizon;
+
+  private final TimingWheel<Integer> wheel;
+  private final Map<Integer, TimingWheel.Timer<Integer>> timers = new HashMap<>();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "task-reminders");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private LocalDateTime loadedUntil;
+
+  public TaskReminderService(
+      TaskService taskService,
+      TaskRepository taskRepository,
+      TenantSchemas tenantSchemas,
+      ReminderSink reminderSink,
+      @Value("${todo.reminders.lead-time:PT1H}") Duration leadTime,
+      @Value("${todo.reminders.horizon:P1D}") Duration horizon,
+      @Value("${todo.reminders.tick:PT1S}") Duration tick) {
+    this.taskService = taskService;
+    this.taskRepository = taskRepository;
+    this.tenantSchemas = tenantSchemas;
+    this.reminderSink = reminderSink;
+    this.leadTime = leadTime;
+    this.horizon = horizon;
+    this.wheel = new TimingWheel<>(tick.toMillis(), System.currentTimeMillis());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    long tickMillis = wheel.getTickMillis();
+    long refillMillis = Math.max(horizon.toMillis() / 2, tickMillis);
+    scheduler.submit(this::refill);
+    scheduler.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    scheduler.scheduleWithFixedDelay(this::refill, refillMillis, refillMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    scheduler.shutdownNow();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onTaskChanged(TaskChangedEvent event) {
+    event.getDeletedIds().forEach(this::cancel);
+    for (TaskDto task : event.getSavedTasks()) {
+      cancel(task.getId());
+      if (isInWindow(task.getDeadline(), LocalDateTime.now())) schedule(task);
+    }
+  }
+
+  public synchronized int getPendingCount() {
+    return wheel.size();
+  }
+
+  /**
+   * Moves the window up to {@code now + lead time + horizon} and loads the deadlines that entered
+   * it. The window moves first, so tasks written during the load are scheduled by their events.
+   */
+  void refill() {
+    try {
+      LocalDateTime now = LocalDateTime.now();
+      LocalDateTime until = now.plus(leadTime).plus(horizon);
+      LocalDateTime after;
+      synchronized (this) {
+        after = loadedUntil == null || loadedUntil.isBefore(now) ? now : loadedUntil;
+        loadedUntil = until;
+      }
+      tenantSchemas.forEachSchema(() ->
+          taskService.forEachTaskOfAllTenantsDueBetween(after, until, this::scheduleIfAbsent));
+      log.debug("{} task reminders pending", getPendingCount());
+    } catch (final Exception exception) {
+      log.error("refill failed", exception);
+    }
+  }
+
+  void tick() {
+    try {
+      List<Integer> dueIds = new ArrayList<>();
+      synchronized (this) {
+        wheel.advance(System.currentTimeMillis(), taskId -> {
+          timers.remove(taskId);
+          dueIds.add(taskId);
+        });
+      }
+      for (int start = 0; start < dueIds.size(); start += DISPATCH_BATCH_SIZE) {
+        dispatch(dueIds.subList(start, Math.min(start + DISPATCH_BATCH_SIZE, dueIds.size())));
+      }
+    } catch (final Exception exception) {
+      log.error("tick failed", exception);
+    }
+  }
+
+  private void dispatch(List<Integer> taskIds) {
+    LocalDateTime now = LocalDateTime.now();
+    List<TaskDto> tasks = new ArrayList<>(taskIds.size());
+    tenantSchemas.forEachSchema(() -> tasks.addAll(taskRepository.findDtosOfAllTenantsByIdIn(taskIds)));
+
+    List<TaskReminderDto> reminders = new ArrayList<>();
+    for (TaskDto task : tasks) {
+      if (task.getDeadline() == null) continue;
+      if (task.getDeadline().minus(leadTime).isAfter(now)) {
+        synchronized (this) {
+          if (isInWindow(task.getDeadline(), now)) scheduleIfAbsent(task);
+        }
+        continue;
+      }
+      reminders.add(TaskReminderDto.from(task, leadTime));
+    }
+    if (!reminders.isEmpty()) reminderSink.send(reminders);
+  }
+
+  private synchronized void scheduleIfAbsent(TaskDto task) {
+    if (!timers.containsKey(task.getId())) schedule(task);
+  }
+
+  private void schedule(TaskDto task) {
+    Instant remindAt = task.getDeadline().minus(leadTime).atZone(ZoneId.systemDefault()).toInstant();
+    timers.put(task.getId(), wheel.schedule(task.getId(), remindAt.toEpochMilli()));
+  }
+
+  private void cancel(Integer taskId) {
+    TimingWheel.Timer<Integer> timer = timers.remove(taskId);
+    if (timer != null) wheel.cancel(timer);
+  }
+
+  private boolean isInWindow(LocalDateTime deadline, LocalDateTime now) {
+    return deadline != null && loadedUntil != null && deadline.isAfter(now) && !deadline.isAfter(loadedUntil);
+  }
+}
@@ -0,0 +1,344 @@
+package ch.cern.todo.service;
+
+import static ch.cern.todo.config.MetricsConfiguration.SERVICE_TIMER;
+
+import ch.cern.todo.config.TenantSchemas;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.dtos.TaskSearchResultDto;
+import ch.cern.todo.events.TaskChangedEvent;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.utils.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Full-text search over task names and descriptions, backed by an embedded Lucene index. The index
+ * is rebuilt from the database on startup, before the server takes requests, and then kept up to
+ * date from committed {@link TaskChangedEvent}s. Searches see a write once the index is next
+ * refreshed, at the latest after {@code todo.search.refresh-interval}. It lives in memory unless
+ * {@code todo.search.index-directory} is set. All tenants share the index; every search is
+ * filtered on the tenant of the caller.
+ */
+@Slf4j
+@Service
+public class TaskSearchService implements SmartInitializingSingleton {
+
+  public static final int MAX_SEARCH_SIZE = 100;
+  public static final int MAX_SEARCH_WINDOW = 10000;
+
+  private static final String ID = "id";
+  private static final String TENANT = "tenant";
+  private static final String NAME = "name";
+  private static final String DESCRIPTION = "description";
+  private static final String NAME_PREFIXES = "namePrefixes";
+  private static final String DESCRIPTION_PREFIXES = "descriptionPrefixes";
+  private static final int MAX_QUERY_TERMS = 16;
+  private static final int MAX_PREFIX_LENGTH = 20;
+  private static final float NAME_BOOST = 2f;
+  private static final float EXACT_BOOST = 2f;
+
+  private TaskService taskService;
+  private TaskRepository taskRepository;
+  private TenantSchemas tenantSchemas;
+  private Analyzer analyzer;
+  private IndexWriter indexWriter;
+  private SearcherManager searcherManager;
+  private ControlledRealTimeReopenThread<IndexSearcher> refreshThread;
+  private final ThreadLocal<IdRange> deferred = new ThreadLocal<>();
+  private final ExecutorService indexer = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "task-search-indexer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private volatile boolean closed;
+
+  public TaskSearchService(
+      TaskService taskService,
+      TaskRepository taskRepository,
+      TenantSchemas tenantSchemas,
+      @Value("${todo.search.index-directory:}") String indexDirectory,
+      @Value("${todo.search.refresh-interval:PT1S}") Duration refreshInterval) throws IOException {
+    this.taskService = taskService;
+    this.taskRepository = taskRepository;
+    this.tenantSchemas = tenantSchemas;
+    this.analyzer = new StandardAnalyzer();
+
+    Analyzer prefixAnalyzer = new PrefixAnalyzer();
+    Analyzer indexAnalyzer = new PerFieldAnalyzerWrapper(analyzer,
+        Map.of(NAME_PREFIXES, prefixAnalyzer, DESCRIPTION_PREFIXES, prefixAnalyzer));
+    Directory directory = indexDirectory.isEmpty()
+        ? new ByteBuffersDirectory()
+        : FSDirectory.open(Paths.get(indexDirectory));
+    this.indexWriter = new IndexWriter(directory, new IndexWriterConfig(indexAnalyzer).setOpenMode(OpenMode.CREATE));
+    this.searcherManager = new SearcherManager(indexWriter, null);
+    double refreshSeconds = refreshInterval.toMillis() / 1000.0;
+    this.refreshThread = new ControlledRealTimeReopenThread<>(indexWriter, searcherManager, refreshSeconds, refreshSeconds);
+    refreshThread.setName("task-search-refresh");
+    refreshThread.setDaemon(true);
+    refreshThread.start();
+  }
+
+  /** Runs before the web server starts and before the write-ahead log is replayed. */
+  @Override
+  public void afterSingletonsInstantiated() {
+    try {
+      rebuild();
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  /**
+   * Indexes every task in the database. Documents are replaced by id, so tasks indexed from
+   * {@link TaskChangedEvent}s in the meantime are not duplicated.
+   */
+  @Timed(SERVICE_TIMER)
+  public void rebuild() throws IOException {
+    AtomicLong count = new AtomicLong();
+    tenantSchemas.forEachSchema(() -> taskService.forEachTaskOfAllTenants(task -> {
+      index(task);
+      count.incrementAndGet();
+    }));
+    indexWriter.commit();
+    searcherManager.maybeRefresh();
+    log.info("Indexed {} tasks for search", count.get());
+  }
+
+  /**
+   * Stops indexing the tasks saved on this thread one event at a time, until {@link #indexDeferred}.
+   * Meant for imports, which would otherwise spend most of their time indexing each chunk before
+   * reading the next one. Deletes are still applied right away.
+   */
+  public void deferIndexing() {
+    deferred.set(new IdRange());
+  }
+
+  /**
+   * Resumes indexing per event on this thread and indexes the tasks saved since
+   * {@link #deferIndexing} in a single pass on a background thread. The pass reads back every task
+   * of the tenant between the lowest and the highest of their ids, so the tasks become searchable
+   * once it is done.
+   */
+  public void indexDeferred() {
+    IdRange range = deferred.get();
+    deferred.remove();
+    if (range == null || range.from > range.to) return;
+    String tenantId = TenantContext.getTenantId();
+    indexer.execute(() -> TenantContext.runAs(tenantId, () -> indexBetween(range)));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTaskChanged(TaskChangedEvent event) {
+    IdRange range = deferred.get();
+    try {
+      for (TaskDto task : event.getSavedTasks()) {
+        if (range != null) range.add(task.getId());
+        else indexWriter.updateDocument(new Term(ID, task.getId().toString()), toDocument(task));
+      }
+      for (Integer id : event.getDeletedIds()) {
+        indexWriter.deleteDocuments(new Term(ID, id.toString()));
+      }
+    } catch (IOException exception) {
+      log.error("Updating the search index failed", exception);
+    }
+  }
+
+  /**
+   * Returns the tasks whose name or description contains every word of {@code text}, either
+   * exactly or as a prefix. Exact matches rank above prefix matches and name matches above
+   * description matches.
+   */
+  @Timed(SERVICE_TIMER)
+  public TaskSearchResultDto search(String text, int page, int size) throws IOException {
+    String tenantId = TenantContext.getTenantId();
+    Query query = toQuery(tenantId, text);
+    if (query == null) return TaskSearchResultDto.builder().tasks(List.of()).totalHits(0L).build();
+
+    List<Integer> ids = new ArrayList<>(size);
+    TopDocs topDocs;
+    IndexSearcher searcher = searcherManager.acquire();
+    try {
+      topDocs = searcher.search(query, (page + 1) * size);
+      ScoreDoc[] hits = topDocs.scoreDocs;
+      StoredFields storedFields = searcher.storedFields();
+      for (int rank = page * size; rank < hits.length; rank++) {
+        ids.add(Integer.valueOf(storedFields.document(hits[rank].doc).get(ID)));
+      }
+    } finally {
+      searcherManager.release(searcher);
+    }
+
+    boolean hasNextPage = topDocs.totalHits.value > (long) (page + 1) * size;
+    return TaskSearchResultDto.builder()
+        .tasks(findTasks(tenantId, ids))
+        .totalHits(topDocs.totalHits.value)
+        .nextPage(hasNextPage ? page + 1 : null)
+        .build();
+  }
+
+  @PreDestroy
+  public void close() throws IOException {
+    closed = true;
+    indexer.shutdown();
+    try {
+      indexer.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    refreshThread.close();
+    searcherManager.close();
+    indexWriter.close();
+    indexWriter.getDirectory().close();
+  }
+
+  private Query toQuery(String tenantId, String text) throws IOException {
+    BooleanQuery.Builder query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term(TENANT, tenantId)), Occur.FILTER);
+    int terms = 0;
+    try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+      CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+      tokens.reset();
+      while (terms < MAX_QUERY_TERMS && tokens.incrementToken()) {
+        query.add(toTermQuery(term.toString()), Occur.MUST);
+        terms++;
+      }
+      tokens.end();
+    }
+    return terms == 0 ? null : query.build();
+  }
+
+  /**
+   * Prefixes are indexed as edge n-grams, so a prefix match is a plain term lookup that can be
+   * scored and skipped like any other, instead of a rewrite over every matching word.
+   */
+  private Query toTermQuery(String term) {
+    String prefix = term.length() > MAX_PREFIX_LENGTH ? term.substring(0, MAX_PREFIX_LENGTH) : term;
+    return new BooleanQuery.Builder()
+        .add(new BoostQuery(new TermQuery(new Term(NAME, term)), NAME_BOOST * EXACT_BOOST), Occur.SHOULD)
+        .add(new BoostQuery(new TermQuery(new Term(DESCRIPTION, term)), EXACT_BOOST), Occur.SHOULD)
+        .add(new BoostQuery(new TermQuery(new Term(NAME_PREFIXES, prefix)), NAME_BOOST), Occur.SHOULD)
+        .add(new TermQuery(new Term(DESCRIPTION_PREFIXES, prefix)), Occur.SHOULD)
+        .build();
+  }
+
+  /** Loads the current state of the matched tasks, keeping their rank and skipping deleted ones. */
+  private List<TaskDto> findTasks(String tenantId, List<Integer> ids) {
+    if (ids.isEmpty()) return List.of();
+    Map<Integer, TaskDto> tasks = taskRepository.findDtosByIdIn(tenantId, ids).stream()
+        .collect(Collectors.toMap(TaskDto::getId, Function.identity()));
+    return ids.stream()
+        .map(tasks::get)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  private void indexBetween(IdRange range) {
+    if (closed) return;
+    long start = System.nanoTime();
+    AtomicLong count = new AtomicLong();
+    try {
+      taskService.forEachTaskBetween(range.from, range.to, task -> {
+        if (closed) throw new CancellationException();
+        index(task);
+        count.incrementAndGet();
+      });
+      log.info("Indexed {} tasks with ids {} to {} in {} ms", count.get(), range.from, range.to,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (RuntimeException exception) {
+      if (!closed) log.error("Indexing tasks {} to {} failed", range.from, range.to, exception);
+    }
+  }
+
+  /** Replaces the document of the task, so that indexing a task twice never duplicates it. */
+  private void index(TaskDto task) {
+    try {
+      indexWriter.updateDocument(new Term(ID, task.getId().toString()), toDocument(task));
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  private static Document toDocument(TaskDto task) {
+    Document document = new Document();
+    document.add(new StringField(ID, task.getId().toString(), Field.Store.YES));
+    document.add(new StringField(TENANT, task.getTenantId(), Field.Store.NO));
+    document.add(new TextField(NAME, task.getName(), Field.Store.NO));
+    document.add(new TextField(NAME_PREFIXES, task.getName(), Field.Store.NO));
+    if (task.getDescription() != null) {
+      document.add(new TextField(DESCRIPTION, task.getDescription(), Field.Store.NO));
+      document.add(new TextField(DESCRIPTION_PREFIXES, task.getDescription(), Field.Store.NO));
+    }
+    return document;
+  }
+
+  private static class IdRange {
+    private int from = Integer.MAX_VALUE;
+    private int to = Integer.MIN_VALUE;
+
+    void add(int id) {
+      from = Math.min(from, id);
+      to = Math.max(to, id);
+    }
+  }
+
+  /** Indexes every prefix of every lower-cased word, up to {@code MAX_PREFIX_LENGTH} chars. */
+  private static class PrefixAnalyzer extends Analyzer {
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+      Tokenizer tokenizer = new StandardTokenizer();
+      TokenStream prefixes = new EdgeNGramTokenFilter(new LowerCaseFilter(tokenizer), 1, MAX_PREFIX_LENGTH, false);
+      return new TokenStreamComponents(tokenizer, prefixes);
+    }
+  }
+}
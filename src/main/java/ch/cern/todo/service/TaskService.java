@@ -1,44 +1,417 @@
 package ch.cern.todo.service;
 
+import static ch.cern.todo.entities.Task.DESCRIPTION_LENGTH;
+import static ch.cern.todo.entities.Task.NAME_LENGTH;
+import static ch.cern.todo.config.MetricsConfiguration.SERVICE_TIMER;
+import static ch.cern.todo.utils.ETagUtils.getCollectionETag;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.OK;
+
+import ch.cern.todo.dtos.BulkResultDto;
 import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.dtos.TaskFilterDto;
+import ch.cern.todo.dtos.TaskPageDto;
 import ch.cern.todo.entities.Task;
+import ch.cern.todo.entities.TaskCategory;
+import ch.cern.todo.entities.Tombstone;
+import ch.cern.todo.events.TaskChangedEvent;
+import ch.cern.todo.repository.PartialUpdateRepository;
+import ch.cern.todo.repository.TaskBulkLoader;
+import ch.cern.todo.repository.TaskCategoryRepository;
 import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.repository.TaskSpecifications;
+import ch.cern.todo.repository.TombstoneRepository;
+import ch.cern.todo.utils.TenantContext;
+import io.micrometer.core.annotation.Timed;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class TaskService {
 
+  public static final int DEFAULT_PAGE_LIMIT = 100;
+  public static final int MAX_PAGE_LIMIT = 1000;
+  public static final int MAX_BULK_SIZE = 10000;
+  public static final Set<String> UPDATABLE_FIELDS = Set.of("name", "description", "categoryId", "deadline");
+
+  private static final String INVALID_DEADLINE = "deadline is not a valid date-time";
+
   private TaskRepository taskRepository;
+  private TaskCategoryRepository taskCategoryRepository;
+  private TombstoneRepository tombstoneRepository;
+  private TaskBulkLoader taskBulkLoader;
+  private PartialUpdateRepository partialUpdateRepository;
+  private EntityManager entityManager;
+  private ApplicationEventPublisher eventPublisher;
+  private int batchSize;
 
-  public TaskService (TaskRepository taskRepository) {
+  public TaskService (
+      TaskRepository taskRepository,
+      TaskCategoryRepository taskCategoryRepository,
+      TombstoneRepository tombstoneRepository,
+      TaskBulkLoader taskBulkLoader,
+      PartialUpdateRepository partialUpdateRepository,
+      EntityManager entityManager,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
     this.taskRepository = taskRepository;
+    this.taskCategoryRepository = taskCategoryRepository;
+    this.tombstoneRepository = tombstoneRepository;
+    this.taskBulkLoader = taskBulkLoader;
+    this.partialUpdateRepository = partialUpdateRepository;
+    this.entityManager = entityManager;
+    this.eventPublisher = eventPublisher;
+    this.batchSize = batchSize;
   }
 
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
   public List<TaskDto> getTasks() {
-    List<TaskDto> tasks = new ArrayList<>();
-    taskRepository.findAll().forEach(task -> {
-      tasks.add(TaskDto.from(task));
-    });
-    return tasks;
+    return taskRepository.findAllDtos(TenantContext.getTenantId());
+  }
+
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public String getTasksETag() {
+    return getCollectionETag("tasks", taskRepository.getCollectionVersion(TenantContext.getTenantId()));
+  }
+
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public List<TaskDto> getTasks(TaskFilterDto filter) {
+    return taskRepository.findDtos(TaskSpecifications.matching(TenantContext.getTenantId(), filter), filter.getSort());
   }
 
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public TaskPageDto getTasksPage(Integer after, int limit) {
+    List<TaskDto> tasks = taskRepository.findDtosByIdGreaterThan(
+        TenantContext.getTenantId(), after, PageRequest.of(0, limit + 1));
+    return TaskPageDto.from(tasks, limit);
+  }
+
+  /**
+   * Walks the tasks of the current tenant through a forward-only cursor. Rows are projected
+   * straight into DTOs, so the persistence context does not grow with the table.
+   */
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public void forEachTask(Consumer<TaskDto> consumer) {
+    try (Stream<TaskDto> tasks = taskRepository.streamAllDtos(TenantContext.getTenantId())) {
+      tasks.forEach(consumer);
+    }
+  }
+
+  /** Like {@link #forEachTask}, for the tasks with {@code from <= id <= to}. */
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public void forEachTaskBetween(int from, int to, Consumer<TaskDto> consumer) {
+    try (Stream<TaskDto> tasks = taskRepository.streamDtosByIdBetween(TenantContext.getTenantId(), from, to)) {
+      tasks.forEach(consumer);
+    }
+  }
+
+  /**
+   * Like {@link #forEachTask}, for the tasks of every tenant whose rows are in the schema of the
+   * current one, see {@link ch.cern.todo.config.TenantSchemas#forEachSchema}.
+   */
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public void forEachTaskOfAllTenants(Consumer<TaskDto> consumer) {
+    try (Stream<TaskDto> tasks = taskRepository.streamDtosOfAllTenants()) {
+      tasks.forEach(consumer);
+    }
+  }
+
+  /** Like {@link #forEachTaskOfAllTenants}, for the tasks with {@code after < deadline <= until}. */
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
+  public void forEachTaskOfAllTenantsDueBetween(LocalDateTime after, LocalDateTime until, Consumer<TaskDto> consumer) {
+    try (Stream<TaskDto> tasks = taskRepository.streamDtosOfAllTenantsByDeadlineAfterAndNotAfter(after, until)) {
+      tasks.forEach(consumer);
+    }
+  }
+
+  @Timed(SERVICE_TIMER)
+  @Transactional(readOnly = true)
   public TaskDto getTaskById(Integer id) {
-    Optional<Task> task = taskRepository.findById(id);
-    if (task.isPresent())
-      return TaskDto.from(task.get());
-    return null;
+    return taskRepository.findDtoById(TenantContext.getTenantId(), id).orElse(null);
   }
 
+  @Timed(SERVICE_TIMER)
+  @Transactional
   public TaskDto saveTask(TaskDto taskDto) {
-    Task newTask = Task.from(taskDto);
-    return TaskDto.from(taskRepository.save(newTask));
+    return saveTask(taskDto, null);
+  }
+
+  /**
+   * Replaces the updatable fields of the task with the given id, only if it still has the
+   * {@code expectedVersion} when one is given. Without an expected version, an id that does not
+   * exist is saved as a new task.
+   */
+  @Timed(SERVICE_TIMER)
+  @Transactional
+  public TaskDto saveTask(TaskDto taskDto, Integer expectedVersion) {
+    Integer id = taskDto.getId();
+    if (id != null && (expectedVersion != null || taskRepository.existsByTenantIdAndId(TenantContext.getTenantId(), id)))
+      return patchTask(id, taskDto, UPDATABLE_FIELDS, expectedVersion);
+    if (taskDto.getInvalidDeadline() != null) throw new IllegalArgumentException(INVALID_DEADLINE);
+
+    TaskDto savedTask = TaskDto.from(taskRepository.saveAndFlush(Task.from(taskDto).toBuilder().id(null).build()));
+    eventPublisher.publishEvent(TaskChangedEvent.saved(savedTask.getTenantId(), List.of(savedTask)));
+    return savedTask;
   }
 
+  /**
+   * Writes the {@code fields} of {@code values} to the task in a single targeted update, see
+   * {@link PartialUpdateRepository}. With an {@code expectedVersion} the update only applies if the
+   * task still has that version and otherwise fails with an optimistic locking conflict.
+   */
+  @Timed(SERVICE_TIMER)
+  @Transactional
+  public TaskDto patchTask(Integer id, TaskDto values, Set<String> fields, Integer expectedVersion) {
+    String tenantId = TenantContext.getTenantId();
+    Map<String, Object> changes = getChanges(id, values, fields);
+    if (!changes.isEmpty()
+        && !partialUpdateRepository.update(Task.class, tenantId, "id", id, expectedVersion, changes)) {
+      if (!taskRepository.existsByTenantIdAndId(tenantId, id)) throw new EmptyResultDataAccessException(1);
+      throw new OptimisticLockingFailureException("Task " + id + " does not have version " + expectedVersion);
+    }
+
+    TaskDto task = taskRepository.findDtoById(tenantId, id).orElseThrow(() -> new EmptyResultDataAccessException(1));
+    if (changes.isEmpty()) {
+      if (expectedVersion != null && expectedVersion != task.getVersion().intValue())
+        throw new OptimisticLockingFailureException("Task " + id + " does not have version " + expectedVersion);
+    } else {
+      eventPublisher.publishEvent(TaskChangedEvent.saved(tenantId, List.of(task)));
+    }
+    return task;
+  }
+
+  @Timed(SERVICE_TIMER)
+  @Transactional
   public void deleteTask(Integer id) {
-    taskRepository.deleteById(id);
+    String tenantId = TenantContext.getTenantId();
+    if (taskRepository.deleteByTenantIdAndId(tenantId, id) == 0) throw new EmptyResultDataAccessException(1);
+    tombstoneRepository.save(Tombstone.from(Tombstone.TASK, id));
+    eventPublisher.publishEvent(TaskChangedEvent.deleted(tenantId, List.of(id)));
+  }
+
+  /**
+   * Inserts every valid task in a single transaction with the {@link TaskBulkLoader}; invalid tasks
+   * are reported and skipped.
+   */
+  @Timed(SERVICE_TIMER)
+  @Transactional
+  public List<BulkResultDto> createTasks(List<TaskDto> taskDtos) {
+    return createTasks(taskDtos, getExistingCategoryIds(taskDtos));
+  }
+
+  /** Like {@link #createTasks(List)}, for callers that already know which categories exist. */
+  @Timed(SERVICE_TIMER)
+  @Transactional
+  public List<BulkResultDto> createTasks(List<TaskDto> taskDtos, Set<Integer> categoryIds) {
+    BulkResultDto[] results = new BulkResultDto[taskDtos.size()];
+    List<TaskDto> validTasks = new ArrayList<>(taskDtos.size());
+    List<Integer> validIndexes = new ArrayList<>(taskDtos.size());
+
+    for (int index = 0; index < taskDtos.size(); index++) {
+      TaskDto taskDto = taskDtos.get(index);
+      String error = taskDto.getId() != null ? "id must not be set" : validate(taskDto, categoryIds);
+
+      if (error != null) {
+        results[index] = BulkResultDto.failure(index, taskDto.getId(), BAD_REQUEST, error);
+      } else {
+        validTasks.add(taskDto);
+        validIndexes.add(index);
+      }
+    }
+
+    String tenantId = TenantContext.getTenantId();
+    List<TaskDto> savedTasks = taskBulkLoader.insert(tenantId, validTasks);
+    for (int i = 0; i < savedTasks.size(); i++) {
+      int index = validIndexes.get(i);
+      results[index] = BulkResultDto.success(index, savedTasks.get(i).getId(), CREATED);
+    }
+    eventPublisher.publishEvent(TaskChangedEvent.saved(tenantId, savedTasks));
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Updates every valid task in a single transaction. Existing rows are loaded one batch at a time
+   * with a single query, so merging them does not issue a select per task. Saved tasks are mapped
+   * to DTOs after each flush, so that they carry their new version.
+   */
+  @Timed(SERVICE_TIMER)
+  @Transactional
+  public List<BulkResultDto> updateTasks(List<TaskDto> taskDtos) {
+    String tenantId = TenantContext.getTenantId();
+    Set<Integer> categoryIds = getExistingCategoryIds(taskDtos);
+    List<BulkResultDto> results = new ArrayList<>(taskDtos.size());
+    List<TaskDto> savedTasks = new ArrayList<>(taskDtos.size());
+
+    for (int start = 0; start < taskDtos.size(); start += batchSize) {
+      List<TaskDto> batch = taskDtos.subList(start, Math.min(start + batchSize, taskDtos.size()));
+      List<Task> batchTasks = new ArrayList<>(batch.size());
+      Map<Integer, Task> existingTasks = taskRepository.findAllByTenantIdAndIdIn(tenantId, getIds(batch)).stream()
+          .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+      for (int offset = 0; offset < batch.size(); offset++) {
+        TaskDto taskDto = batch.get(offset);
+        int index = start + offset;
+
+        if (taskDto.getId() == null) {
+          results.add(BulkResultDto.failure(index, null, BAD_REQUEST, "id is required"));
+        } else if (!existingTasks.containsKey(taskDto.getId())) {
+          results.add(BulkResultDto.failure(index, taskDto.getId(), NOT_FOUND, "task not found"));
+        } else {
+          String error = validate(taskDto, categoryIds);
+          if (error != null) {
+            results.add(BulkResultDto.failure(index, taskDto.getId(), BAD_REQUEST, error));
+          } else {
+            Task existingTask = existingTasks.get(taskDto.getId());
+            Task task = taskRepository.save(Task.from(taskDto).toBuilder()
+                .version(existingTask.getVersion())
+                .changeVersion(existingTask.getChangeVersion())
+                .tenantId(existingTask.getTenantId())
+                .build());
+            batchTasks.add(task);
+            results.add(BulkResultDto.success(index, taskDto.getId(), OK));
+          }
+        }
+      }
+      flushAndClear();
+      batchTasks.forEach(task -> savedTasks.add(TaskDto.from(task)));
+    }
+    eventPublisher.publishEvent(TaskChangedEvent.saved(tenantId, savedTasks));
+    return results;
+  }
+
+  @Timed(SERVICE_TIMER)
+  @Transactional
+  public List<BulkResultDto> deleteTasks(List<Integer> ids) {
+    String tenantId = TenantContext.getTenantId();
+    List<BulkResultDto> results = new ArrayList<>(ids.size());
+    List<Integer> deletedIds = new ArrayList<>(ids.size());
+
+    for (int start = 0; start < ids.size(); start += batchSize) {
+      List<Integer> batch = ids.subList(start, Math.min(start + batchSize, ids.size()));
+      Set<Integer> existingIds = getExistingTaskIds(batch);
+
+      for (int offset = 0; offset < batch.size(); offset++) {
+        Integer id = batch.get(offset);
+        int index = start + offset;
+
+        if (id == null) {
+          results.add(BulkResultDto.failure(index, null, BAD_REQUEST, "id is required"));
+        } else if (!existingIds.contains(id)) {
+          results.add(BulkResultDto.failure(index, id, NOT_FOUND, "task not found"));
+        } else {
+          results.add(BulkResultDto.success(index, id, OK));
+        }
+      }
+      if (!existingIds.isEmpty()) {
+        taskRepository.deleteAllByIdInBatch(existingIds);
+        existingIds.forEach(id -> tombstoneRepository.save(Tombstone.from(Tombstone.TASK, id)));
+      }
+      deletedIds.addAll(existingIds);
+    }
+    eventPublisher.publishEvent(TaskChangedEvent.deleted(tenantId, deletedIds));
+    return results;
+  }
+
+  private Map<String, Object> getChanges(Integer id, TaskDto values, Set<String> fields) {
+    Map<String, Object> changes = new HashMap<>();
+    for (String field : fields) {
+      switch (field) {
+        case "id":
+          if (!id.equals(values.getId())) throw new IllegalArgumentException("id does not match");
+          break;
+        case "name":
+          if (values.getName() == null) throw new IllegalArgumentException("name is required");
+          if (values.getName().length() > NAME_LENGTH) throw new IllegalArgumentException("name is too long");
+          changes.put("name", values.getName());
+          break;
+        case "description":
+          if (values.getDescription() != null && values.getDescription().length() > DESCRIPTION_LENGTH)
+            throw new IllegalArgumentException("description is too long");
+          changes.put("description", values.getDescription());
+          break;
+        case "categoryId":
+          if (values.getCategoryId() == null) throw new IllegalArgumentException("categoryId is required");
+          changes.put("category", entityManager.getReference(TaskCategory.class, values.getCategoryId()));
+          break;
+        case "deadline":
+          if (values.getInvalidDeadline() != null) throw new IllegalArgumentException(INVALID_DEADLINE);
+          if (values.getDeadline() == null) throw new IllegalArgumentException("deadline is required");
+          changes.put("deadline", values.getDeadline());
+          break;
+        default:
+          throw new IllegalArgumentException("unknown field " + field);
+      }
+    }
+    return changes;
+  }
+
+  private String validate(TaskDto taskDto, Set<Integer> categoryIds) {
+    if (taskDto.getName() == null) return "name is required";
+    if (taskDto.getName().length() > NAME_LENGTH) return "name is too long";
+    if (taskDto.getDescription() != null && taskDto.getDescription().length() > DESCRIPTION_LENGTH)
+      return "description is too long";
+    if (!categoryIds.contains(taskDto.getCategoryId())) return "category not found";
+    if (taskDto.getInvalidDeadline() != null) return INVALID_DEADLINE;
+    if (taskDto.getDeadline() == null) return "deadline is required";
+    return null;
+  }
+
+  private Set<Integer> getExistingCategoryIds(List<TaskDto> taskDtos) {
+    Set<Integer> categoryIds = taskDtos.stream()
+        .map(TaskDto::getCategoryId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    if (categoryIds.isEmpty()) return categoryIds;
+    return new HashSet<>(taskCategoryRepository.findExistingIds(TenantContext.getTenantId(), categoryIds));
+  }
+
+  private Set<Integer> getExistingTaskIds(List<Integer> ids) {
+    Set<Integer> taskIds = ids.stream()
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    if (taskIds.isEmpty()) return taskIds;
+    return new HashSet<>(taskRepository.findExistingIds(TenantContext.getTenantId(), taskIds));
+  }
+
+  private Set<Integer> getIds(List<TaskDto> taskDtos) {
+    return taskDtos.stream()
+        .map(TaskDto::getId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+  }
+
+  private void flushAndClear() {
+    entityManager.flush();
+    entityManager.clear();
   }
 
 }
@@ -0,0 +1,210 @@
+package ch.cern.todo.service;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import ch.cern.todo.dtos.BulkResultDto;
+import ch.cern.todo.dtos.ImportProgressDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.repository.TaskCategoryRepository;
+import ch.cern.todo.utils.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streams tasks in and out as CSV or NDJSON without holding the whole file in memory. An import
+ * parses one row at a time and inserts every {@code todo.import.chunk-size} valid rows in their own
+ * transaction with {@link TaskService#createTasks(List, Set)}, checking categories against the ids
+ * loaded once at the start rather than per row. Ids in the input are ignored; imported tasks get
+ * new ones. Errors are reported per line, and the totals after every chunk. Imported tasks are
+ * added to the search index in one pass at the end, see {@link TaskSearchService#deferIndexing}.
+ */
+@Service
+public class TaskTransferService {
+
+  private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+      .addColumn("id")
+      .addColumn("categoryId")
+      .addColumn("name")
+      .addColumn("description")
+      .addColumn("deadline")
+      .build()
+      .withHeader();
+
+  private TaskService taskService;
+  private TaskSearchService taskSearchService;
+  private TaskCategoryRepository taskCategoryRepository;
+  private ObjectMapper objectMapper;
+  private ObjectMapper csvMapper;
+  private int chunkSize;
+
+  public TaskTransferService(
+      TaskService taskService,
+      TaskSearchService taskSearchService,
+      TaskCategoryRepository taskCategoryRepository,
+      ObjectMapper objectMapper,
+      Jackson2ObjectMapperBuilder objectMapperBuilder,
+      @Value("${todo.import.chunk-size:10000}") int chunkSize) {
+    this.taskService = taskService;
+    this.taskSearchService = taskSearchService;
+    this.taskCategoryRepository = taskCategoryRepository;
+    this.objectMapper = objectMapper;
+    this.csvMapper = objectMapperBuilder.factory(new CsvFactory()).build();
+    this.chunkSize = chunkSize;
+  }
+
+  public void exportCsv(OutputStream output) throws IOException {
+    export(csvMapper.writer(CSV_SCHEMA), output);
+  }
+
+  public void exportNdjson(OutputStream output) throws IOException {
+    export(objectMapper.writer().withRootValueSeparator("\n"), output);
+  }
+
+  /**
+   * The first line must be a header naming the columns, as written by {@link #exportCsv}. A row
+   * that cannot be read is reported and skipped; the line of a row is the line of the file it
+   * starts on, counting the header as line 1.
+   */
+  public void importCsv(InputStream input, Consumer<ImportProgressDto> progress) throws IOException {
+    ObjectReader reader = csvMapper.readerFor(TaskDto.class)
+        .with(CsvSchema.emptySchema().withHeader())
+        .with(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+    Chunk chunk = new Chunk(progress);
+
+    taskSearchService.deferIndexing();
+    try (MappingIterator<TaskDto> rows = reader.readValues(input)) {
+      while (rows.hasNextValue()) {
+        long line = rows.getCurrentLocation().getLineNr();
+        try {
+          chunk.add(line, rows.nextValue());
+        } catch (JsonProcessingException exception) {
+          chunk.fail(line, "invalid task: " + exception.getOriginalMessage());
+        }
+      }
+      chunk.flush();
+    } finally {
+      taskSearchService.indexDeferred();
+    }
+    chunk.finish();
+  }
+
+  /** Blank lines are skipped. */
+  public void importNdjson(InputStream input, Consumer<ImportProgressDto> progress) throws IOException {
+    ObjectReader reader = objectMapper.readerFor(TaskDto.class);
+    BufferedReader lines = new BufferedReader(new InputStreamReader(input, UTF_8));
+    Chunk chunk = new Chunk(progress);
+
+    taskSearchService.deferIndexing();
+    try {
+      long line = 0;
+      String text;
+      while ((text = lines.readLine()) != null) {
+        line++;
+        if (text.isBlank()) continue;
+        try {
+          chunk.add(line, reader.readValue(text));
+        } catch (JsonProcessingException exception) {
+          chunk.fail(line, "invalid task: " + exception.getOriginalMessage());
+        }
+      }
+      chunk.flush();
+    } finally {
+      taskSearchService.indexDeferred();
+    }
+    chunk.finish();
+  }
+
+  private void export(ObjectWriter writer, OutputStream output) throws IOException {
+    try (SequenceWriter sequenceWriter = writer.writeValues(output)) {
+      taskService.forEachTask(task -> {
+        try {
+          sequenceWriter.write(task);
+        } catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      });
+    }
+  }
+
+  private Set<Integer> loadCategoryIds() {
+    return new HashSet<>(taskCategoryRepository.findAllIds(TenantContext.getTenantId()));
+  }
+
+  private class Chunk {
+    private final Consumer<ImportProgressDto> progress;
+    private final List<TaskDto> tasks = new ArrayList<>(chunkSize);
+    private final long[] lines = new long[chunkSize];
+    private Set<Integer> categoryIds = loadCategoryIds();
+    private long imported;
+    private long failed;
+
+    private Chunk(Consumer<ImportProgressDto> progress) {
+      this.progress = progress;
+    }
+
+    private void add(long line, TaskDto taskDto) {
+      lines[tasks.size()] = line;
+      tasks.add(TaskDto.builder()
+          .categoryId(taskDto.getCategoryId())
+          .name(taskDto.getName())
+          .description(taskDto.getDescription())
+          .deadline(taskDto.getDeadline())
+          .invalidDeadline(taskDto.getInvalidDeadline())
+          .build());
+      if (tasks.size() == chunkSize) {
+        flush();
+        progress.accept(ImportProgressDto.progress(imported, failed, false));
+      }
+    }
+
+    private void fail(long line, String error) {
+      failed++;
+      progress.accept(ImportProgressDto.error(line, error));
+    }
+
+    private void finish() {
+      progress.accept(ImportProgressDto.progress(imported, failed, true));
+    }
+
+    /** The chunk is retried once with fresh category ids if a category was deleted since they were loaded. */
+    private void flush() {
+      if (tasks.isEmpty()) return;
+
+      List<BulkResultDto> results;
+      try {
+        results = taskService.createTasks(tasks, categoryIds);
+      } catch (DataIntegrityViolationException exception) {
+        categoryIds = loadCategoryIds();
+        results = taskService.createTasks(tasks, categoryIds);
+      }
+      for (int index = 0; index < results.size(); index++) {
+        BulkResultDto result = results.get(index);
+        if (result.getError() == null) imported++;
+        else fail(lines[index], result.getError());
+      }
+      tasks.clear();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package ch.cern.todo.utils;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer queue on a ring of slots (Vyukov's array queue).
+ * Every slot carries a sequence number that says for which lap it is free to write or ready to
+ * read, so producers and consumers each claim a slot with a single CAS on their own counter and
+ * never block each other. The capacity is rounded up to a power of two.
+ */
+public class BoundedRingQueue<E> {
+
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  public BoundedRingQueue(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("capacity must be in [1, 2^30]");
+    int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+    this.elements = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    this.mask = size - 1;
+    for (int slot = 0; slot < size; slot++) sequences.set(slot, slot);
+  }
+
+  /** Returns {@code false}, without waiting, when the queue is full. */
+  public boolean offer(E element) {
+    if (element == null) throw new NullPointerException();
+
+    long position = tail.get();
+    while (true) {
+      int slot = (int) position & mask;
+      long lag = sequences.get(slot) - position;
+      if (lag == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.lazySet(slot, element);
+          sequences.set(slot, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (lag < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /** Returns {@code null} when the queue is empty. */
+  public E poll() {
+    long position = head.get();
+    while (true) {
+      int slot = (int) position & mask;
+      long lag = sequences.get(slot) - (position + 1);
+      if (lag == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          E element = elements.get(slot);
+          elements.lazySet(slot, null);
+          sequences.set(slot, position + mask + 1);
+          return element;
+        }
+        position = head.get();
+      } else if (lag < 0) {
+        return null;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  /** Moves up to {@code maxElements} elements to {@code target} and returns how many were moved. */
+  public int drainTo(Collection<? super E> target, int maxElements) {
+    int count = 0;
+    E element;
+    while (count < maxElements && (element = poll()) != null) {
+      target.add(element);
+      count++;
+    }
+    return count;
+  }
+
+  /** Approximate while producers or consumers are active. */
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity()));
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+}
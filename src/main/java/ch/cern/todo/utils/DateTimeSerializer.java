@@ -0,0 +1,35 @@
+package ch.cern.todo.utils;
+
+import static ch.cern.todo.utils.DateUtils.MAX_DATE_TIME_LENGTH;
+import static ch.cern.todo.utils.DateUtils.formatDateTime;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a {@link LocalDateTime} as its ISO string without going through
+ * {@link LocalDateTime#toString()} or a {@code DateTimeFormatter}. It is formatted into a char
+ * buffer kept per thread, which the generator copies from.
+ */
+public class DateTimeSerializer extends StdSerializer<LocalDateTime> {
+
+  private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[MAX_DATE_TIME_LENGTH]);
+
+  public DateTimeSerializer() {
+    super(LocalDateTime.class);
+  }
+
+  @Override
+  public void serialize(LocalDateTime value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+    char[] buffer = BUFFER.get();
+    int length = formatDateTime(value, buffer);
+    if (length < 0) {
+      generator.writeString(value.toString());
+    } else {
+      generator.writeString(buffer, 0, length);
+    }
+  }
+}
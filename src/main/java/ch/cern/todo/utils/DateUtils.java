@@ -1,12 +1,53 @@
 package ch.cern.todo.utils;
 
-import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class DateUtils {
-  public static Timestamp getSqlTimeStamp(String dateTime) {
-    LocalDateTime localDateTime = LocalDateTime.parse(dateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-    return Timestamp.valueOf(localDateTime);
+  /** Longest ISO local date-time written by {@link #formatDateTime}: {@code 9999-12-31T23:59:59.999999999}. */
+  public static final int MAX_DATE_TIME_LENGTH = 29;
+
+  public static LocalDateTime parseDateTime(String dateTime) {
+    return LocalDateTime.parse(dateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+  }
+
+  /**
+   * Writes {@code dateTime} to {@code buffer} in the format of {@link LocalDateTime#toString()}
+   * and returns the number of chars written, or -1 for years outside 0-9999.
+   */
+  public static int formatDateTime(LocalDateTime dateTime, char[] buffer) {
+    int year = dateTime.getYear();
+    if (year < 0 || year > 9999) return -1;
+
+    int position = writeDigits(buffer, 0, year, 4);
+    buffer[position++] = '-';
+    position = writeDigits(buffer, position, dateTime.getMonthValue(), 2);
+    buffer[position++] = '-';
+    position = writeDigits(buffer, position, dateTime.getDayOfMonth(), 2);
+    buffer[position++] = 'T';
+    position = writeDigits(buffer, position, dateTime.getHour(), 2);
+    buffer[position++] = ':';
+    position = writeDigits(buffer, position, dateTime.getMinute(), 2);
+
+    int second = dateTime.getSecond();
+    int nano = dateTime.getNano();
+    if (second == 0 && nano == 0) return position;
+
+    buffer[position++] = ':';
+    position = writeDigits(buffer, position, second, 2);
+    if (nano == 0) return position;
+
+    buffer[position++] = '.';
+    if (nano % 1_000_000 == 0) return writeDigits(buffer, position, nano / 1_000_000, 3);
+    if (nano % 1_000 == 0) return writeDigits(buffer, position, nano / 1_000, 6);
+    return writeDigits(buffer, position, nano, 9);
+  }
+
+  private static int writeDigits(char[] buffer, int position, int value, int digits) {
+    for (int index = position + digits - 1; index >= position; index--) {
+      buffer[index] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    return position + digits;
   }
 }
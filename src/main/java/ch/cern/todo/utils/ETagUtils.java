@@ -0,0 +1,38 @@
+package ch.cern.todo.utils;
+
+import ch.cern.todo.dtos.CollectionVersionDto;
+
+/**
+ * ETags are weak: the same version is served as JSON, CBOR or Smile and possibly gzipped, and
+ * Tomcat does not compress responses that carry a strong ETag.
+ */
+public class ETagUtils {
+  public static String getETag(Integer id, Integer version) {
+    return "W/\"" + id + "-" + version + "\"";
+  }
+
+  /**
+   * Returns the version in an {@code If-Match} header holding an ETag of {@link #getETag}, or
+   * {@code null} when there is no header or it is {@code *}.
+   */
+  public static Integer getVersion(String ifMatch, Integer id) {
+    if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+
+    String eTag = ifMatch.trim();
+    if (eTag.startsWith("W/")) eTag = eTag.substring(2);
+    String prefix = "\"" + id + "-";
+    if (!eTag.startsWith(prefix) || !eTag.endsWith("\"")) throw new IllegalArgumentException("invalid If-Match " + ifMatch);
+    return Integer.valueOf(eTag.substring(prefix.length(), eTag.length() - 1));
+  }
+
+  /**
+   * Ids are never reused and every update bumps a row version, so the row count, the highest id
+   * and the sum of versions together change whenever a row is inserted, updated or deleted.
+   */
+  public static String getCollectionETag(String collection, CollectionVersionDto version) {
+    long count = version.getCount() == null ? 0 : version.getCount();
+    int maxId = version.getMaxId() == null ? 0 : version.getMaxId();
+    long versionSum = version.getVersionSum() == null ? 0 : version.getVersionSum();
+    return "W/\"" + collection + "-" + count + "-" + maxId + "-" + versionSum + "\"";
+  }
+}
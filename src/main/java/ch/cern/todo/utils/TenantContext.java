@@ -0,0 +1,54 @@
+package ch.cern.todo.utils;
+
+import java.util.regex.Pattern;
+
+/**
+ * Holds the tenant that the current thread works for. Requests get the tenant of their
+ * {@value #HEADER} header, see {@link ch.cern.todo.config.TenantFilter}; threads that were not given
+ * one, such as background jobs, work for the {@value #DEFAULT_TENANT} tenant. Work handed to another
+ * thread has to take the tenant along with {@link #enter}.
+ */
+public final class TenantContext {
+
+  public static final String HEADER = "X-Tenant-Id";
+  public static final String DEFAULT_TENANT = "default";
+  public static final int TENANT_ID_LENGTH = 50;
+
+  /** Tenant ids also name the schemas of dedicated tenants, so they are restricted to plain identifiers. */
+  private static final Pattern TENANT_ID = Pattern.compile("[a-z0-9_]{1," + TENANT_ID_LENGTH + "}");
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private TenantContext() {
+  }
+
+  public static String getTenantId() {
+    String tenantId = CURRENT.get();
+    return tenantId == null ? DEFAULT_TENANT : tenantId;
+  }
+
+  public static boolean isValid(String tenantId) {
+    return tenantId != null && TENANT_ID.matcher(tenantId).matches();
+  }
+
+  /** Makes {@code tenantId} current until the returned scope is closed, which restores the previous one. */
+  public static Scope enter(String tenantId) {
+    if (!isValid(tenantId)) throw new IllegalArgumentException("invalid tenant id " + tenantId);
+    String previous = CURRENT.get();
+    CURRENT.set(tenantId);
+    return () -> {
+      if (previous == null) CURRENT.remove();
+      else CURRENT.set(previous);
+    };
+  }
+
+  public static void runAs(String tenantId, Runnable task) {
+    try (Scope scope = enter(tenantId)) {
+      task.run();
+    }
+  }
+
+  public interface Scope extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,144 @@
+package ch.cern.todo.utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timing wheel. Level {@code n} has 64 slots of {@code 64^n} ticks each; a
+ * timer goes to the lowest level whose span covers its delay and moves down a level each time the
+ * wheel reaches its slot, so scheduling and cancelling are O(1) and a tick only touches the timers
+ * that expire or cascade in it. Timers fire on the first tick at or after their due time, never
+ * before. Not thread-safe.
+ */
+public class TimingWheel<T> {
+
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final long SLOT_MASK = SLOTS - 1;
+  private static final int LEVELS = 6;
+
+  private final long tickMillis;
+  @SuppressWarnings("unchecked")
+  private final Timer<T>[] slots = new Timer[LEVELS * SLOTS];
+  private long currentTick;
+  private int size;
+
+  public TimingWheel(long tickMillis, long startMillis) {
+    if (tickMillis < 1) throw new IllegalArgumentException("tickMillis must be positive");
+    this.tickMillis = tickMillis;
+    this.currentTick = startMillis / tickMillis;
+  }
+
+  /** Schedules {@code value} to expire at {@code dueMillis}, or on the next tick if that is in the past. */
+  public Timer<T> schedule(T value, long dueMillis) {
+    long dueTick = Math.floorDiv(dueMillis, tickMillis) + (Math.floorMod(dueMillis, tickMillis) == 0 ? 0 : 1);
+    Timer<T> timer = new Timer<>(value, Math.max(dueTick, currentTick + 1));
+    place(timer);
+    size++;
+    return timer;
+  }
+
+  /** Returns {@code false} if the timer has already expired or been cancelled. */
+  public boolean cancel(Timer<T> timer) {
+    if (timer.slot < 0) return false;
+    unlink(timer);
+    size--;
+    return true;
+  }
+
+  /**
+   * Turns the wheel up to {@code nowMillis}, handing the value of every timer that falls due to
+   * {@code expired} in due order. Returns the number of expired timers.
+   */
+  public int advance(long nowMillis, Consumer<? super T> expired) {
+    long targetTick = nowMillis / tickMillis;
+    if (size == 0) {
+      currentTick = Math.max(currentTick, targetTick);
+      return 0;
+    }
+
+    int count = 0;
+    while (currentTick < targetTick) {
+      currentTick++;
+      for (int level = LEVELS - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) cascade(slotOf(level, currentTick));
+      }
+
+      int slot = slotOf(0, currentTick);
+      Timer<T> timer;
+      while ((timer = slots[slot]) != null) {
+        unlink(timer);
+        size--;
+        count++;
+        expired.accept(timer.value);
+      }
+    }
+    return count;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long getTickMillis() {
+    return tickMillis;
+  }
+
+  private void place(Timer<T> timer) {
+    long delay = timer.dueTick - currentTick;
+    int level = 0;
+    while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) level++;
+
+    int slot = slotOf(level, timer.dueTick);
+    Timer<T> head = slots[slot];
+    timer.slot = slot;
+    timer.previous = null;
+    timer.next = head;
+    if (head != null) head.previous = timer;
+    slots[slot] = timer;
+  }
+
+  /** Detaches the whole slot first, timers beyond the top level may land in it again. */
+  private void cascade(int slot) {
+    Timer<T> timer = slots[slot];
+    slots[slot] = null;
+    while (timer != null) {
+      Timer<T> next = timer.next;
+      place(timer);
+      timer = next;
+    }
+  }
+
+  private void unlink(Timer<T> timer) {
+    if (timer.previous != null) timer.previous.next = timer.next;
+    else slots[timer.slot] = timer.next;
+    if (timer.next != null) timer.next.previous = timer.previous;
+    timer.previous = null;
+    timer.next = null;
+    timer.slot = -1;
+  }
+
+  private static int slotOf(int level, long tick) {
+    return level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+  }
+
+  public static final class Timer<T> {
+    private final T value;
+    private final long dueTick;
+    private Timer<T> previous;
+    private Timer<T> next;
+    private int slot = -1;
+
+    private Timer(T value, long dueTick) {
+      this.value = value;
+      this.dueTick = dueTick;
+    }
+
+    public T getValue() {
+      return value;
+    }
+
+    public boolean isPending() {
+      return slot >= 0;
+    }
+  }
+}
@@ -0,0 +1,295 @@
+package ch.cern.todo.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opaque records in memory-mapped segment files of a fixed size. Every record
+ * gets the next sequence number and a CRC32C over its type, sequence and payload, so that a record
+ * torn by a crash ends the replay of its segment instead of being read back as garbage.
+ *
+ * <p>Records stay pending until they are {@link #applied} or {@link #abort aborted}. A
+ * {@link #checkpoint} appends the highest sequence below which nothing is pending and deletes the
+ * segments that hold only older records. On {@link #open}, the records after the last checkpoint
+ * that were not aborted are recovered and stay pending; appends then go to a new segment.
+ *
+ * <p>Appends are serialized, but a record is only a memory copy, so the cost of durability is
+ * decided by the {@link FsyncPolicy}. With {@link FsyncPolicy#ALWAYS}, appenders that wait for the
+ * disk at the same time share one fsync.
+ */
+public class WriteAheadLog implements Closeable {
+
+  public enum FsyncPolicy {
+    /** Every append returns once the record is on disk. */
+    ALWAYS,
+    /** The owner calls {@link #sync()} periodically; a power loss drops the appends since. */
+    INTERVAL,
+    /** The operating system writes the pages back; only a process crash is survived. */
+    NEVER
+  }
+
+  private static final String SUFFIX = ".wal";
+  private static final int HEADER_SIZE = 4 + 4 + 1 + 8;
+  private static final byte RECORD = 1;
+  private static final byte ABORT = 2;
+  private static final byte CHECKPOINT = 3;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final FsyncPolicy fsyncPolicy;
+  private final List<Record> recovered;
+  private final Deque<Segment> closedSegments;
+  private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+  private final CRC32C crc = new CRC32C();
+  private final Object syncLock = new Object();
+
+  private Segment segment;
+  private long nextSequence;
+  private long checkpoint;
+  private volatile long syncedSequence;
+
+  private WriteAheadLog(
+      Path directory, int segmentSize, FsyncPolicy fsyncPolicy, List<Record> recovered,
+      Deque<Segment> closedSegments, long nextSequence, long checkpoint) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.fsyncPolicy = fsyncPolicy;
+    this.recovered = recovered;
+    this.closedSegments = closedSegments;
+    this.nextSequence = nextSequence;
+    this.checkpoint = checkpoint;
+    this.syncedSequence = nextSequence - 1;
+    for (Record record : recovered) pending.add(record.getSequence());
+    this.segment = Segment.create(directory, nextSequence, segmentSize);
+  }
+
+  public static WriteAheadLog open(Path directory, int segmentSize, FsyncPolicy fsyncPolicy) throws IOException {
+    if (segmentSize < HEADER_SIZE + 8) throw new IllegalArgumentException("segmentSize is too small");
+    Files.createDirectories(directory);
+
+    TreeMap<Long, byte[]> unapplied = new TreeMap<>();
+    Deque<Segment> segments = new ArrayDeque<>();
+    long lastSequence = 0;
+    long checkpoint = 0;
+    for (Path path : listSegments(directory)) {
+      Segment segment = new Segment(path, null);
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        CRC32C crc = new CRC32C();
+        while (buffer.remaining() >= HEADER_SIZE) {
+          int length = buffer.getInt();
+          int checksum = buffer.getInt();
+          byte type = buffer.get();
+          long sequence = buffer.getLong();
+          if (type == 0 || length < 0 || length > buffer.remaining()) break;
+
+          byte[] payload = new byte[length];
+          buffer.get(payload);
+          if (checksum != checksum(crc, type, sequence, payload)) break;
+
+          lastSequence = Math.max(lastSequence, sequence);
+          segment.lastSequence = Math.max(segment.lastSequence, sequence);
+          if (type == RECORD) {
+            unapplied.put(sequence, payload);
+          } else if (type == ABORT) {
+            unapplied.remove(toLong(payload));
+          } else if (type == CHECKPOINT) {
+            checkpoint = Math.max(checkpoint, toLong(payload));
+            unapplied.headMap(checkpoint, true).clear();
+          }
+        }
+      }
+      if (segment.lastSequence == 0) Files.delete(path);
+      else segments.add(segment);
+    }
+
+    List<Record> recovered = unapplied.entrySet().stream()
+        .map(entry -> new Record(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+    return new WriteAheadLog(directory, segmentSize, fsyncPolicy, recovered, segments, lastSequence + 1, checkpoint);
+  }
+
+  /** The records that were pending when the log was opened, in sequence order. */
+  public List<Record> getRecovered() {
+    return recovered;
+  }
+
+  /** Appends {@code payload} and returns its sequence number; the record is pending until applied. */
+  public long append(byte[] payload) throws IOException {
+    long sequence;
+    synchronized (this) {
+      sequence = write(RECORD, payload);
+      pending.add(sequence);
+    }
+    if (fsyncPolicy == FsyncPolicy.ALWAYS) sync(sequence);
+    return sequence;
+  }
+
+  /** Records that the record with {@code sequence} must not be replayed although it was not applied. */
+  public void abort(long sequence) throws IOException {
+    synchronized (this) {
+      write(ABORT, toBytes(sequence));
+      pending.remove(sequence);
+    }
+  }
+
+  /** Records that the record with {@code sequence} has been applied; it is dropped by the next checkpoint. */
+  public void applied(long sequence) {
+    pending.remove(sequence);
+  }
+
+  /**
+   * Appends the sequence below which every record has been applied, if it moved, and deletes the
+   * segments that only hold such records.
+   */
+  public synchronized void checkpoint() throws IOException {
+    long watermark = pending.isEmpty() ? nextSequence - 1 : pending.first() - 1;
+    if (watermark <= checkpoint) return;
+
+    write(CHECKPOINT, toBytes(watermark));
+    checkpoint = watermark;
+    while (!closedSegments.isEmpty() && closedSegments.peekFirst().lastSequence <= watermark) {
+      Files.deleteIfExists(closedSegments.pollFirst().path);
+    }
+  }
+
+  /** Forces every record appended so far to disk. */
+  public void sync() throws IOException {
+    long sequence;
+    synchronized (this) {
+      sequence = nextSequence - 1;
+    }
+    sync(sequence);
+  }
+
+  /**
+   * Concurrent callers queue up on the sync lock; the first one forces everything appended so far,
+   * which usually covers the records of the callers behind it.
+   */
+  private void sync(long sequence) throws IOException {
+    if (syncedSequence >= sequence) return;
+    synchronized (syncLock) {
+      if (syncedSequence >= sequence) return;
+
+      MappedByteBuffer buffer;
+      long appended;
+      synchronized (this) {
+        buffer = segment.buffer;
+        appended = nextSequence - 1;
+      }
+      buffer.force();
+      syncedSequence = appended;
+    }
+  }
+
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fsyncPolicy != FsyncPolicy.NEVER) sync();
+  }
+
+  /** Must hold the monitor. Moves to a new segment when the record does not fit the current one. */
+  private long write(byte type, byte[] payload) throws IOException {
+    int size = HEADER_SIZE + payload.length;
+    if (size > segmentSize) throw new IllegalArgumentException("record of " + size + " bytes exceeds the segment size");
+
+    if (segment.buffer.remaining() < size) {
+      if (fsyncPolicy != FsyncPolicy.NEVER) segment.buffer.force();
+      closedSegments.addLast(segment);
+      segment = Segment.create(directory, nextSequence, segmentSize);
+    }
+
+    long sequence = nextSequence++;
+    segment.buffer
+        .putInt(payload.length)
+        .putInt(checksum(crc, type, sequence, payload))
+        .put(type)
+        .putLong(sequence)
+        .put(payload);
+    segment.lastSequence = sequence;
+    return sequence;
+  }
+
+  private static int checksum(CRC32C crc, byte type, long sequence, byte[] payload) {
+    crc.reset();
+    crc.update(type);
+    for (int shift = 56; shift >= 0; shift -= 8) crc.update((int) (sequence >>> shift));
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+
+  private static byte[] toBytes(long value) {
+    byte[] bytes = new byte[8];
+    for (int index = 0; index < 8; index++) bytes[index] = (byte) (value >>> (56 - 8 * index));
+    return bytes;
+  }
+
+  private static long toLong(byte[] bytes) {
+    long value = 0;
+    for (byte b : bytes) value = (value << 8) | (b & 0xFF);
+    return value;
+  }
+
+  private static List<Path> listSegments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().collect(Collectors.toList());
+    }
+  }
+
+  public static class Record {
+    private final long sequence;
+    private final byte[] payload;
+
+    private Record(long sequence, byte[] payload) {
+      this.sequence = sequence;
+      this.payload = payload;
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+    public byte[] getPayload() {
+      return payload;
+    }
+  }
+
+  /** Segment files are named after their first sequence number, zero-padded so that they sort. */
+  private static class Segment {
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private long lastSequence;
+
+    private Segment(Path path, MappedByteBuffer buffer) {
+      this.path = path;
+      this.buffer = buffer;
+    }
+
+    private static Segment create(Path directory, long firstSequence, int size) throws IOException {
+      Path path = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+      try (FileChannel channel = FileChannel.open(
+          path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        Segment segment = new Segment(path, channel.map(MapMode.READ_WRITE, 0, size));
+        segment.lastSequence = firstSequence - 1;
+        return segment;
+      }
+    }
+  }
+}
@@ -1,3 +0,0 @@
-INSERT INTO TASK_CATEGORY (name, description) VALUES ('Work', 'Tasks related to work')
-INSERT INTO TASK_CATEGORY (name, description) VALUES ('Home', 'Tasks related to the house')
-INSERT INTO TASK_CATEGORY (name, description) VALUES ('Other', 'Other tasks')
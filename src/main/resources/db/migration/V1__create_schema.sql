@@ -0,0 +1,44 @@
+-- Ids and change versions come from sequences that hand out blocks of 50 (Hibernate's pooled-lo
+-- optimizer), so inserts are batched and need a round trip for only one row in 50
+CREATE SEQUENCE task_category_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE task_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE tombstone_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE change_version_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE task_category (
+  category_id INTEGER NOT NULL,
+  name VARCHAR(100) NOT NULL,
+  description VARCHAR(500),
+  version INTEGER NOT NULL,
+  last_modified TIMESTAMP NOT NULL,
+  change_version BIGINT NOT NULL,
+  CONSTRAINT pk_task_category PRIMARY KEY (category_id),
+  CONSTRAINT uk_task_category_name UNIQUE (name)
+);
+CREATE INDEX idx_task_category_change_version ON task_category (change_version);
+
+CREATE TABLE task (
+  id INTEGER NOT NULL,
+  category_id INTEGER,
+  name VARCHAR(100) NOT NULL,
+  description VARCHAR(500),
+  deadline TIMESTAMP NOT NULL,
+  version INTEGER NOT NULL,
+  last_modified TIMESTAMP NOT NULL,
+  change_version BIGINT NOT NULL,
+  CONSTRAINT pk_task PRIMARY KEY (id),
+  CONSTRAINT fk_task_category FOREIGN KEY (category_id) REFERENCES task_category (category_id)
+);
+CREATE INDEX idx_task_category_deadline ON task (category_id, deadline);
+CREATE INDEX idx_task_deadline ON task (deadline);
+CREATE INDEX idx_task_change_version ON task (change_version);
+
+CREATE TABLE tombstone (
+  id BIGINT NOT NULL,
+  entity_type VARCHAR(20) NOT NULL,
+  entity_id INTEGER NOT NULL,
+  change_version BIGINT NOT NULL,
+  deleted_at TIMESTAMP NOT NULL,
+  CONSTRAINT pk_tombstone PRIMARY KEY (id)
+);
+CREATE INDEX idx_tombstone_change_version ON tombstone (change_version);
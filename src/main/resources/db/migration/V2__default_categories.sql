@@ -0,0 +1,9 @@
+INSERT INTO task_category (category_id, name, description, version, last_modified, change_version)
+VALUES (1, 'Work', 'Tasks related to work', 0, CURRENT_TIMESTAMP, NEXTVAL('change_version_seq'));
+INSERT INTO task_category (category_id, name, description, version, last_modified, change_version)
+VALUES (2, 'Home', 'Tasks related to the house', 0, CURRENT_TIMESTAMP, NEXTVAL('change_version_seq'));
+INSERT INTO task_category (category_id, name, description, version, last_modified, change_version)
+VALUES (3, 'Other', 'Other tasks', 0, CURRENT_TIMESTAMP, NEXTVAL('change_version_seq'));
+
+-- With pooled-lo the next block starts at the value handed out, so new categories start at 4
+ALTER SEQUENCE task_category_seq RESTART WITH 4;
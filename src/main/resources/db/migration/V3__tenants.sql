@@ -0,0 +1,28 @@
+-- Every task, category and tombstone belongs to a tenant; the existing rows go to the default one
+ALTER TABLE task_category ADD COLUMN tenant_id VARCHAR(50) DEFAULT 'default' NOT NULL;
+ALTER TABLE task ADD COLUMN tenant_id VARCHAR(50) DEFAULT 'default' NOT NULL;
+ALTER TABLE tombstone ADD COLUMN tenant_id VARCHAR(50) DEFAULT 'default' NOT NULL;
+ALTER TABLE task_category ALTER COLUMN tenant_id DROP DEFAULT;
+ALTER TABLE task ALTER COLUMN tenant_id DROP DEFAULT;
+ALTER TABLE tombstone ALTER COLUMN tenant_id DROP DEFAULT;
+
+-- Category names are unique per tenant, and a task can only be in a category of its own tenant
+ALTER TABLE task DROP CONSTRAINT fk_task_category;
+ALTER TABLE task_category DROP CONSTRAINT uk_task_category_name;
+ALTER TABLE task_category ADD CONSTRAINT uk_task_category_tenant_name UNIQUE (tenant_id, name);
+ALTER TABLE task_category ADD CONSTRAINT uk_task_category_tenant_id UNIQUE (tenant_id, category_id);
+ALTER TABLE task ADD CONSTRAINT fk_task_category
+  FOREIGN KEY (tenant_id, category_id) REFERENCES task_category (tenant_id, category_id);
+
+-- Every query of a request filters on its tenant, so the indexes lead with the tenant and a scan
+-- only covers the rows of that tenant. idx_task_deadline stays for the reminders of all tenants.
+DROP INDEX idx_task_category_deadline;
+DROP INDEX idx_task_change_version;
+DROP INDEX idx_task_category_change_version;
+DROP INDEX idx_tombstone_change_version;
+CREATE INDEX idx_task_tenant_id ON task (tenant_id, id);
+CREATE INDEX idx_task_tenant_category_deadline ON task (tenant_id, category_id, deadline);
+CREATE INDEX idx_task_tenant_deadline ON task (tenant_id, deadline);
+CREATE INDEX idx_task_tenant_change_version ON task (tenant_id, change_version);
+CREATE INDEX idx_task_category_tenant_change_version ON task_category (tenant_id, change_version);
+CREATE INDEX idx_tombstone_tenant_change_version ON tombstone (tenant_id, change_version);
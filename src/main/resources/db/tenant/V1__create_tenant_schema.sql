@@ -0,0 +1,47 @@
+-- The tables of a dedicated tenant schema, in the shape of the shared ones after
+-- db/migration/V3__tenants.sql. Ids and change versions come from the sequences of the shared
+-- schema, so there are none here. Changes to the shared tables need a migration here too.
+CREATE TABLE task_category (
+  category_id INTEGER NOT NULL,
+  tenant_id VARCHAR(50) NOT NULL,
+  name VARCHAR(100) NOT NULL,
+  description VARCHAR(500),
+  version INTEGER NOT NULL,
+  last_modified TIMESTAMP NOT NULL,
+  change_version BIGINT NOT NULL,
+  CONSTRAINT pk_task_category PRIMARY KEY (category_id),
+  CONSTRAINT uk_task_category_tenant_name UNIQUE (tenant_id, name),
+  CONSTRAINT uk_task_category_tenant_id UNIQUE (tenant_id, category_id)
+);
+CREATE INDEX idx_task_category_tenant_change_version ON task_category (tenant_id, change_version);
+
+CREATE TABLE task (
+  id INTEGER NOT NULL,
+  tenant_id VARCHAR(50) NOT NULL,
+  category_id INTEGER,
+  name VARCHAR(100) NOT NULL,
+  description VARCHAR(500),
+  deadline TIMESTAMP NOT NULL,
+  version INTEGER NOT NULL,
+  last_modified TIMESTAMP NOT NULL,
+  change_version BIGINT NOT NULL,
+  CONSTRAINT pk_task PRIMARY KEY (id),
+  CONSTRAINT fk_task_category
+    FOREIGN KEY (tenant_id, category_id) REFERENCES task_category (tenant_id, category_id)
+);
+CREATE INDEX idx_task_tenant_id ON task (tenant_id, id);
+CREATE INDEX idx_task_tenant_category_deadline ON task (tenant_id, category_id, deadline);
+CREATE INDEX idx_task_tenant_deadline ON task (tenant_id, deadline);
+CREATE INDEX idx_task_tenant_change_version ON task (tenant_id, change_version);
+CREATE INDEX idx_task_deadline ON task (deadline);
+
+CREATE TABLE tombstone (
+  id BIGINT NOT NULL,
+  tenant_id VARCHAR(50) NOT NULL,
+  entity_type VARCHAR(20) NOT NULL,
+  entity_id INTEGER NOT NULL,
+  change_version BIGINT NOT NULL,
+  deleted_at TIMESTAMP NOT NULL,
+  CONSTRAINT pk_tombstone PRIMARY KEY (id)
+);
+CREATE INDEX idx_tombstone_tenant_change_version ON tombstone (tenant_id, change_version);
@@ -0,0 +1,146 @@
+package ch.cern.todo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.cern.todo.dtos.SyncDto;
+import ch.cern.todo.dtos.TaskCategoryDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.utils.TenantContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(webEnvironment= WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class SyncResourceTests {
+
+	@LocalServerPort
+	int randomServerPort;
+
+	private TestRestTemplate testRestTemplate;
+	private RestTemplate patchRestTemplate;
+	private final String baseUrl = "http://localhost";
+
+	@BeforeEach
+	public void setUp() {
+		testRestTemplate = new TestRestTemplate();
+		patchRestTemplate = testRestTemplate.getRestTemplate();
+
+		HttpClient httpClient = HttpClientBuilder.create().build();
+		patchRestTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory(httpClient));
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void sync_should_page_through_all_rows_in_change_order() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task"));
+
+		ResponseEntity<SyncDto> firstPage = sync(0, 3);
+		ResponseEntity<SyncDto> secondPage = sync(firstPage.getBody().getVersion(), 3);
+		ResponseEntity<SyncDto> badSince = sync(-1, 3);
+
+		assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(firstPage.getBody().getCategories()).extracting(TaskCategoryDto::getName)
+				.containsExactly("Work", "Home", "Other");
+		assertThat(firstPage.getBody().getTasks()).isEmpty();
+		assertThat(firstPage.getBody().getHasMore()).isTrue();
+		assertThat(secondPage.getBody().getTasks()).extracting(TaskDto::getId).containsExactly(1, 2);
+		assertThat(secondPage.getBody().getHasMore()).isFalse();
+		assertThat(badSince.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void sync_should_return_only_changes_and_deletes_since_version() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task"));
+		long version = sync(0, 100).getBody().getVersion();
+
+		updateTask(getPayload("valid-task-update"));
+		delete("tasks/delete/2");
+		delete("categories/delete/3");
+		ResponseEntity<SyncDto> delta = sync(version, 100);
+		ResponseEntity<SyncDto> upToDate = sync(delta.getBody().getVersion(), 100);
+
+		assertThat(delta.getBody().getTasks()).extracting(TaskDto::getName).containsExactly("test updated");
+		assertThat(delta.getBody().getCategories()).isEmpty();
+		assertThat(delta.getBody().getDeletedTaskIds()).containsExactly(2);
+		assertThat(delta.getBody().getDeletedCategoryIds()).containsExactly(3);
+		assertThat(upToDate.getBody().getTasks()).isEmpty();
+		assertThat(upToDate.getBody().getDeletedTaskIds()).isEmpty();
+		assertThat(upToDate.getBody().getVersion()).isEqualTo(delta.getBody().getVersion());
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void sync_should_only_return_changes_of_the_tenant() throws Exception {
+		createTask(getPayload("valid-task"));
+		delete("tasks/delete/1");
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(TenantContext.HEADER, "acme");
+		ResponseEntity<SyncDto> acme = testRestTemplate.exchange(
+				getUri("sync?since=0&limit=100"), HttpMethod.GET, new HttpEntity<>(headers), SyncDto.class);
+
+		assertThat(acme.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(acme.getBody().getCategories()).isEmpty();
+		assertThat(acme.getBody().getTasks()).isEmpty();
+		assertThat(acme.getBody().getDeletedTaskIds()).isEmpty();
+		assertThat(sync(0, 100).getBody().getDeletedTaskIds()).containsExactly(1);
+	}
+
+	private URI getUri(String endpoint) throws URISyntaxException {
+		return new URI(baseUrl + ":" + randomServerPort + "/" + endpoint);
+	}
+
+	private JsonNode getPayload(String fileName) throws IOException {
+		final File file = new ClassPathResource("payloads/tasks/" + fileName + ".json").getFile();
+		final String fileContent = Files.readString(file.toPath());
+		return new ObjectMapper().readTree(fileContent);
+	}
+
+	private ResponseEntity<SyncDto> sync(long since, int limit) throws Exception {
+		URI uri = getUri("sync?since=" + since + "&limit=" + limit);
+		return testRestTemplate.getForEntity(uri, SyncDto.class);
+	}
+
+	private ResponseEntity<TaskDto> createTask(JsonNode payload) throws Exception {
+		URI uri = getUri("tasks/create");
+		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
+		return testRestTemplate.postForEntity(uri, request, TaskDto.class);
+	}
+
+	private ResponseEntity<TaskDto> updateTask(JsonNode payload) throws Exception {
+		URI uri = getUri("tasks/update");
+		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
+		return patchRestTemplate.exchange(uri, HttpMethod.PATCH, request, TaskDto.class);
+	}
+
+	private ResponseEntity delete(String endpoint) throws Exception {
+		URI uri = getUri(endpoint);
+		return testRestTemplate.exchange(uri, HttpMethod.DELETE, HttpEntity.EMPTY, void.class);
+	}
+}
@@ -3,17 +3,27 @@ package ch.cern.todo;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import ch.cern.todo.dtos.TaskCategoryDto;
+import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.entities.Task;
+import ch.cern.todo.entities.TaskCategory;
 import ch.cern.todo.repository.TaskCategoryRepository;
+import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.utils.TenantContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
+import java.time.LocalDateTime;
 import java.util.List;
+import javax.persistence.EntityManagerFactory;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,19 +33,29 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootTest(webEnvironment= WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
 class TaskCategoryResourceTests {
 
 	@Autowired
 	private TaskCategoryRepository repository;
 
+	@Autowired
+	private TaskRepository taskRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
 	@LocalServerPort
 	int randomServerPort;
 
@@ -175,6 +195,30 @@ class TaskCategoryResourceTests {
 		assertThat(repository.count()).isEqualTo(DEFAULT_CATEGORIES_COUNT + 1);
 	}
 
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void categories_should_be_scoped_to_their_tenant() throws Exception {
+		JsonNode payload = getPayload("valid-category");
+		getCategories();
+
+		ResponseEntity<TaskCategoryDto> defaultCategory = createCategory(payload);
+		ResponseEntity<TaskCategoryDto> acmeCategory = createCategoryAsTenant("acme", payload);
+		ResponseEntity<TaskCategoryDto> acmeDuplicate = createCategoryAsTenant("acme", payload);
+		ResponseEntity<TaskCategoryDto> bigCategory = createCategoryAsTenant("big", payload);
+		ResponseEntity<TaskCategoryDto[]> acmeCategories = exchangeAsTenant(
+				"acme", HttpMethod.GET, "", TaskCategoryDto[].class);
+		ResponseEntity<TaskCategoryDto> defaultCategoryAsAcme = exchangeAsTenant(
+				"acme", HttpMethod.GET, "" + defaultCategory.getBody().getCategoryId(), TaskCategoryDto.class);
+
+		assertThat(acmeCategory.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(acmeDuplicate.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(bigCategory.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(acmeCategories.getBody()).extracting(TaskCategoryDto::getCategoryId)
+				.containsExactly(acmeCategory.getBody().getCategoryId());
+		assertThat(defaultCategoryAsAcme.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(getCategories().getBody()).hasSize(DEFAULT_CATEGORIES_COUNT + 1);
+	}
+
 	@Test
 	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 	void update_category_should_update_category_when_data_input_is_valid() throws Exception {
@@ -237,6 +281,141 @@ class TaskCategoryResourceTests {
 		assertThat(repository.count()).isEqualTo(DEFAULT_CATEGORIES_COUNT);
 	}
 
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_category_should_not_return_stale_category_after_update() throws Exception {
+		getCategoryById(1);
+		getCategories();
+		updateCategory(getPayload("valid-category-update"));
+		TaskCategoryDto expectedResult = TaskCategoryDto.builder()
+				.categoryId(1)
+				.name("category")
+				.description("This is a category updated")
+				.build();
+
+		ResponseEntity<TaskCategoryDto> response = getCategoryById(1);
+		ResponseEntity<TaskCategoryDto[]> categoriesResponse = getCategories();
+
+		assertThat(response.getBody()).usingRecursiveComparison().isEqualTo(expectedResult);
+		assertThat(categoriesResponse.getBody()[0]).usingRecursiveComparison().isEqualTo(expectedResult);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_categories_should_be_served_from_cache_when_called_again() throws Exception {
+		getCategories();
+		getCategories();
+
+		ResponseEntity<JsonNode> response = testRestTemplate.getForEntity(
+				new URI(baseUrl + ":" + randomServerPort + "/actuator/metrics/cache.gets?tag=cache:categories&tag=result:hit"),
+				JsonNode.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().at("/measurements/0/value").asDouble()).isEqualTo(1.0);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_categories_should_return_not_modified_until_a_category_changes() throws Exception {
+		String eTag = getCategories().getHeaders().getETag();
+
+		ResponseEntity<TaskCategoryDto[]> notModified = getIfNoneMatch("", eTag, TaskCategoryDto[].class);
+		updateCategory(getPayload("valid-category-update"));
+		ResponseEntity<TaskCategoryDto[]> modified = getIfNoneMatch("", eTag, TaskCategoryDto[].class);
+
+		assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(modified.getBody()).hasSize(DEFAULT_CATEGORIES_COUNT);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_category_should_return_not_modified_when_not_modified_since() throws Exception {
+		long lastModified = getCategoryById(1).getHeaders().getLastModified();
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfModifiedSince(lastModified);
+
+		ResponseEntity<TaskCategoryDto> response = testRestTemplate.exchange(
+				getUri("1"), HttpMethod.GET, new HttpEntity<>(headers), TaskCategoryDto.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void patch_category_should_change_only_the_given_fields() throws Exception {
+		ObjectNode patch = new ObjectMapper().createObjectNode().put("description", "Only the description");
+
+		ResponseEntity<TaskCategoryDto> response = patchCategory(1, patch);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(getCategoryById(1).getBody())
+				.usingRecursiveComparison()
+				.isEqualTo(TaskCategoryDto.builder().categoryId(1).name("Work").description("Only the description").build());
+		assertThat(patchCategory(1, patch.put("tasks", "unknown")).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void update_category_should_create_category_when_category_does_not_exist() throws Exception {
+		JsonNode payload = getPayload("valid-category-update");
+		((ObjectNode) payload).put("categoryId", 15);
+
+		ResponseEntity<TaskCategoryDto> response = updateCategory(payload);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(repository.count()).isEqualTo(DEFAULT_CATEGORIES_COUNT + 1);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_categories_should_include_task_counts() throws Exception {
+		saveTask("first", 1);
+		saveTask("second", 1);
+		saveTask("third", 3);
+
+		ResponseEntity<TaskCategoryDto[]> response = getCategories("?include=counts");
+		ResponseEntity<TaskCategoryDto[]> badInclude = getCategories("?include=owners");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).extracting(TaskCategoryDto::getTaskCount).containsExactly(2L, 0L, 1L);
+		assertThat(response.getBody()).extracting(TaskCategoryDto::getTasks).containsOnlyNulls();
+		assertThat(badInclude.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_categories_should_include_tasks() throws Exception {
+		saveTask("first", 1);
+		saveTask("second", 1);
+		saveTask("third", 3);
+
+		ResponseEntity<TaskCategoryDto[]> response = getCategories("?include=tasks");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).hasSize(DEFAULT_CATEGORIES_COUNT);
+		assertThat(response.getBody()[0].getTasks()).extracting(TaskDto::getName).containsExactly("first", "second");
+		assertThat(response.getBody()[1].getTasks()).isEmpty();
+		assertThat(response.getBody()[2].getTaskCount()).isEqualTo(1L);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_categories_including_tasks_should_use_constant_number_of_statements() throws Exception {
+		saveTask("first", 1);
+		long statementsForDefaultCategories = countStatements("?include=tasks");
+
+		for (int i = 0; i < 20; i++) {
+			TaskCategory category = repository.save(TaskCategory.builder().name("Extra " + i).build());
+			saveTask("task " + i, category.getCategoryId());
+		}
+		long statementsForManyCategories = countStatements("?include=tasks");
+
+		assertThat(statementsForDefaultCategories).isEqualTo(1);
+		assertThat(statementsForManyCategories).isEqualTo(statementsForDefaultCategories);
+		assertThat(countStatements("?include=counts")).isEqualTo(1);
+	}
+
 	private URI getUri(String endpoint) throws URISyntaxException {
 		return new URI(baseUrl + ":" + randomServerPort + "/categories/" + endpoint);
 	}
@@ -248,27 +427,72 @@ class TaskCategoryResourceTests {
 	}
 
 	private ResponseEntity<TaskCategoryDto[]> getCategories() throws Exception {
-		URI uri = getUri("");
+		return getCategories("");
+	}
+
+	private ResponseEntity<TaskCategoryDto[]> getCategories(String query) throws Exception {
+		URI uri = getUri(query);
 		return testRestTemplate.getForEntity(uri, TaskCategoryDto[].class);
 	}
 
+	private long countStatements(String query) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		getCategories(query);
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void saveTask(String name, int categoryId) {
+		taskRepository.save(Task.builder()
+				.name(name)
+				.category(TaskCategory.from(categoryId))
+				.deadline(LocalDateTime.parse("2023-10-01T00:00"))
+				.build());
+	}
+
 	private ResponseEntity<TaskCategoryDto> getCategoryById(int id) throws Exception {
 		URI uri = getUri("" + id);
 		return testRestTemplate.getForEntity(uri, TaskCategoryDto.class);
 	}
 
+	private <T> ResponseEntity<T> getIfNoneMatch(String endpoint, String eTag, Class<T> type) throws Exception {
+		URI uri = getUri(endpoint);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(eTag);
+		return testRestTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), type);
+	}
+
 	private ResponseEntity<TaskCategoryDto> createCategory(JsonNode payload) throws Exception {
 		URI uri = getUri("create");
 		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
 		return testRestTemplate.postForEntity(uri, request, TaskCategoryDto.class);
 	}
 
+	private ResponseEntity<TaskCategoryDto> createCategoryAsTenant(String tenantId, JsonNode payload) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(TenantContext.HEADER, tenantId);
+		return testRestTemplate.postForEntity(getUri("create"), new HttpEntity<>(payload, headers), TaskCategoryDto.class);
+	}
+
+	private <T> ResponseEntity<T> exchangeAsTenant(String tenantId, HttpMethod method, String endpoint, Class<T> type)
+			throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(TenantContext.HEADER, tenantId);
+		return testRestTemplate.exchange(getUri(endpoint), method, new HttpEntity<>(headers), type);
+	}
+
 	private ResponseEntity<TaskCategoryDto> updateCategory(JsonNode payload) throws Exception {
 		URI uri = getUri("update");
 		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
 		return patchRestTemplate.exchange(uri, HttpMethod.PATCH, request, TaskCategoryDto.class);
 	}
 
+	private ResponseEntity<TaskCategoryDto> patchCategory(int id, JsonNode patch) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType("application/merge-patch+json"));
+		return patchRestTemplate.exchange(getUri("" + id), HttpMethod.PATCH, new HttpEntity<>(patch, headers), TaskCategoryDto.class);
+	}
+
 	private ResponseEntity deleteCategory(Integer id) throws Exception {
 		URI uri = getUri("delete/"  + id);
 		return testRestTemplate.exchange(uri, HttpMethod.DELETE, HttpEntity.EMPTY, void.class);
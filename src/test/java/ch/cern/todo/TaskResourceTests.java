@@ -1,41 +1,80 @@
 package ch.cern.todo;
 
 import static org.assertj.core.api.Assertions.assertThat;
-
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import ch.cern.todo.dtos.BulkResultDto;
+import ch.cern.todo.dtos.TaskCategoryDto;
 import ch.cern.todo.dtos.TaskDto;
+import ch.cern.todo.dtos.TaskPageDto;
+import ch.cern.todo.dtos.TaskSearchResultDto;
+import ch.cern.todo.reminders.ReminderSink;
 import ch.cern.todo.repository.TaskRepository;
+import ch.cern.todo.utils.TenantContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootTest(webEnvironment= WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@AutoConfigureMetrics
 class TaskResourceTests {
 
 	@Autowired
 	private TaskRepository repository;
 
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private ReminderSink reminderSink;
+
 	@LocalServerPort
 	int randomServerPort;
 
@@ -76,6 +115,203 @@ class TaskResourceTests {
 		}
 	}
 
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_tasks_should_return_filtered_tasks_when_filters_are_given() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task-no-description"));
+		createTask(getPayload("valid-task"));
+
+		ResponseEntity<TaskDto[]> byCategory = getTasks("?categoryId=1&namePrefix=te");
+		ResponseEntity<TaskDto[]> byDeadline =
+				getTasks("?deadlineFrom=2023-10-02T00:00&deadlineTo=2023-10-12T00:00");
+		ResponseEntity<TaskDto[]> sorted = getTasks("?sort=-deadline");
+
+		assertThat(byCategory.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(byCategory.getBody()).extracting(TaskDto::getId).containsExactly(1, 3);
+		assertThat(byDeadline.getBody()).extracting(TaskDto::getId).containsExactly(2);
+		assertThat(sorted.getBody()).extracting(TaskDto::getId).containsExactly(2, 1, 3);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_tasks_should_return_error_when_filter_is_invalid() throws Exception {
+		ResponseEntity<TaskDto[]> badDeadline = getTasks("?deadlineFrom=tomorrow");
+		ResponseEntity<TaskDto[]> badSort = getTasks("?sort=name");
+
+		assertThat(badDeadline.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(badSort.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_tasks_page_should_return_next_cursor_when_more_tasks_exist() throws Exception {
+		JsonNode payload = getPayload("valid-task");
+		createTask(payload);
+		createTask(payload);
+		createTask(payload);
+
+		ResponseEntity<TaskPageDto> firstPage = getTasksPage(0, 2);
+		ResponseEntity<TaskPageDto> lastPage = getTasksPage(firstPage.getBody().getNextCursor(), 2);
+
+		assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(firstPage.getBody().getTasks()).extracting(TaskDto::getId).containsExactly(1, 2);
+		assertThat(firstPage.getBody().getNextCursor()).isEqualTo(2);
+		assertThat(lastPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(lastPage.getBody().getTasks()).extracting(TaskDto::getId).containsExactly(3);
+		assertThat(lastPage.getBody().getNextCursor()).isNull();
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_tasks_page_should_not_return_next_cursor_when_last_page_is_full() throws Exception {
+		JsonNode payload = getPayload("valid-task");
+		createTask(payload);
+		createTask(payload);
+
+		ResponseEntity<TaskPageDto> response = getTasksPage(0, 2);
+
+		assertThat(response.getBody().getTasks()).extracting(TaskDto::getId).containsExactly(1, 2);
+		assertThat(response.getBody().getNextCursor()).isNull();
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_tasks_page_should_return_error_when_limit_is_invalid() throws Exception {
+		ResponseEntity<TaskPageDto> response = getTasksPage(0, 0);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void search_tasks_should_rank_name_matches_first_and_match_prefixes() throws Exception {
+		createTask(buildTaskPayload("Write report", "Quarterly numbers for the meeting"));
+		createTask(buildTaskPayload("Prepare meeting", "Agenda and report template"));
+		createTask(buildTaskPayload("Buy groceries", "Milk and bread"));
+
+		ResponseEntity<TaskSearchResultDto> exact = awaitSearch(() -> searchTasks("?q=report"), 2);
+		ResponseEntity<TaskSearchResultDto> prefix = searchTasks("?q=MEET&size=1");
+		ResponseEntity<TaskSearchResultDto> badSize = searchTasks("?q=report&size=0");
+
+		assertThat(exact.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(exact.getBody().getTasks()).extracting(TaskDto::getId).containsExactly(1, 2);
+		assertThat(exact.getBody().getTotalHits()).isEqualTo(2);
+		assertThat(prefix.getBody().getTasks()).extracting(TaskDto::getName).containsExactly("Prepare meeting");
+		assertThat(prefix.getBody().getNextPage()).isEqualTo(1);
+		assertThat(badSize.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void search_tasks_should_follow_updates_and_deletes() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task"));
+		updateTask(getPayload("valid-task-update"));
+		deleteTask(2);
+
+		ResponseEntity<TaskSearchResultDto> original = awaitSearch(() -> searchTasks("?q=test"), 1);
+		ResponseEntity<TaskSearchResultDto> updated = searchTasks("?q=updated");
+
+		assertThat(updated.getBody().getTasks()).extracting(TaskDto::getName).containsExactly("test updated");
+		assertThat(original.getBody().getTasks()).extracting(TaskDto::getId).containsExactly(1);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void due_and_overdue_tasks_should_be_split_by_deadline() throws Exception {
+		ObjectNode dueSoon = (ObjectNode) buildTaskPayload("due soon", "Due within the hour");
+		dueSoon.put("deadline", LocalDateTime.now().plusHours(1).withNano(0).toString());
+		createTask(getPayload("valid-task"));
+		createTask(dueSoon);
+		createTask(getPayload("valid-task"));
+		deleteTask(3);
+
+		ResponseEntity<TaskDto[]> due = getTasks("due?within=PT2H");
+		ResponseEntity<TaskDto[]> dueTooSoon = getTasks("due?within=PT1M");
+		ResponseEntity<TaskDto[]> overdue = getTasks("overdue");
+		ResponseEntity<TaskDto[]> badWithin = getTasks("due?within=tomorrow");
+		ResponseEntity<TaskDto[]> hugeWithin = getTasks("due?within=PT999999999999999H");
+
+		assertThat(due.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(due.getBody()).extracting(TaskDto::getName).containsExactly("due soon");
+		assertThat(dueTooSoon.getBody()).isEmpty();
+		assertThat(overdue.getBody()).extracting(TaskDto::getId).containsExactly(1);
+		assertThat(badWithin.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(hugeWithin.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void reminders_should_be_sent_for_deadlines_within_the_lead_time() throws Exception {
+		ObjectNode dueSoon = (ObjectNode) buildTaskPayload("due soon", "Due within the hour");
+		dueSoon.put("deadline", LocalDateTime.now().plusMinutes(30).withNano(0).toString());
+		ObjectNode dueLater = (ObjectNode) buildTaskPayload("due later", "Due tomorrow");
+		dueLater.put("deadline", LocalDateTime.now().plusHours(20).withNano(0).toString());
+		createTask(dueSoon);
+		createTask(dueLater);
+
+		verify(reminderSink, timeout(5000)).send(argThat(reminders ->
+				reminders.size() == 1 && reminders.get(0).getName().equals("due soon")));
+		verify(reminderSink, never()).send(argThat(reminders ->
+				reminders.stream().anyMatch(reminder -> reminder.getName().equals("due later"))));
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void changes_should_push_writes_and_resume_from_last_event_id() throws Exception {
+		try (Stream<String> live = subscribeToChanges(null)) {
+			createTask(getPayload("valid-task"));
+			updateTask(getPayload("valid-task-update"));
+			deleteTask(1);
+
+			List<String> events = readEvents(live.iterator(), 3);
+			assertThat(events).extracting(event -> event.split("\n")[1])
+					.containsExactly("event:task.created", "event:task.updated", "event:task.deleted");
+			assertThat(events.get(1)).contains("\"name\":\"test updated\"");
+
+			String firstId = events.get(0).split("\n")[0].substring("id:".length());
+			try (Stream<String> resumed = subscribeToChanges(firstId);
+					Stream<String> unknown = subscribeToChanges("0-1")) {
+				assertThat(readEvents(resumed.iterator(), 2)).extracting(event -> event.split("\n")[1])
+						.containsExactly("event:task.updated", "event:task.deleted");
+				assertThat(readEvents(unknown.iterator(), 1).get(0)).contains("event:reset");
+			}
+		}
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void stream_tasks_should_return_all_tasks_as_ndjson() throws Exception {
+		JsonNode payload = getPayload("valid-task");
+		createTask(payload);
+		createTask(payload);
+		TaskDto expectedResult = buildTaskDto(
+				2, "test", "This is a test", 1, "2023-10-01T00:00");
+
+		ResponseEntity<String> response = streamTasks("ndjson");
+		String[] lines = response.getBody().split("\n");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(lines).hasSize(2);
+		assertThat(new ObjectMapper().readValue(lines[1], TaskDto.class))
+				.usingRecursiveComparison().isEqualTo(expectedResult);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void stream_tasks_should_return_all_tasks_as_json_array() throws Exception {
+		JsonNode payload = getPayload("valid-task");
+		createTask(payload);
+		createTask(payload);
+
+		ResponseEntity<String> response = streamTasks("array");
+		TaskDto[] tasks = new ObjectMapper().readValue(response.getBody(), TaskDto[].class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(tasks).extracting(TaskDto::getId).containsExactly(1, 2);
+	}
+
 	@Test
 	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 	void get_task_should_return_task_when_task_exists() throws Exception {
@@ -103,6 +339,17 @@ class TaskResourceTests {
 		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
 	}
 
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_task_should_write_deadline_as_iso_local_date_time() throws Exception {
+		createTask(getPayload("valid-task"));
+
+		ResponseEntity<String> response = testRestTemplate.getForEntity(getUri("1"), String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).contains("\"deadline\":\"2023-10-01T00:00\"");
+	}
+
 	@Test
 	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 	void create_task_should_create_task_when_data_input_is_valid() throws Exception {
@@ -130,7 +377,7 @@ class TaskResourceTests {
 				.id(1)
 				.name("test no description")
 				.categoryId(2)
-				.deadline("2023-10-12T00:00")
+				.deadline(LocalDateTime.parse("2023-10-12T00:00"))
 				.build();
 
 		ResponseEntity<TaskDto> response = createTask(payload);
@@ -195,7 +442,7 @@ class TaskResourceTests {
 				.id(1)
 				.name("test updated no description")
 				.categoryId(2)
-				.deadline("2023-10-13T10:00")
+				.deadline(LocalDateTime.parse("2023-10-13T10:00"))
 				.build();
 
 		ResponseEntity<TaskDto> response = updateTask(updatePayload);
@@ -243,6 +490,299 @@ class TaskResourceTests {
 		assertThat(repository.count()).isEqualTo(1);
 	}
 
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void create_tasks_should_create_valid_tasks_and_report_invalid_ones() throws Exception {
+		JsonNode payload = getPayload("bulk-tasks");
+
+		ResponseEntity<BulkResultDto[]> response = createTasks(payload);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).extracting(BulkResultDto::getStatus)
+				.containsExactly(201, 400, 400, 201);
+		assertThat(response.getBody()).extracting(BulkResultDto::getId)
+				.containsExactly(1, null, null, 2);
+		assertThat(repository.count()).isEqualTo(2);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void create_tasks_should_report_a_malformed_deadline_for_that_task_only() throws Exception {
+		ObjectNode malformed = (ObjectNode) getPayload("valid-task");
+		malformed.put("deadline", "tomorrow");
+		JsonNode payload = new ObjectMapper().createArrayNode().add(getPayload("valid-task")).add(malformed);
+
+		ResponseEntity<BulkResultDto[]> response = createTasks(payload);
+		ResponseEntity<TaskDto> single = createTask(malformed);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).extracting(BulkResultDto::getStatus).containsExactly(201, 400);
+		assertThat(response.getBody()[1].getError()).isEqualTo("deadline is not a valid date-time");
+		assertThat(single.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(repository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void ingest_task_should_acknowledge_on_enqueue_or_on_group_commit() throws Exception {
+		ResponseEntity<BulkResultDto> queued = ingestTask(getPayload("valid-task"), false);
+		ResponseEntity<BulkResultDto> committed = ingestTask(getPayload("valid-task"), true);
+		ResponseEntity<BulkResultDto> invalid = ingestTask(getPayload("invalid-task-no-name"), true);
+
+		assertThat(queued.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(committed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(getTaskById(committed.getBody().getId()).getBody().getName()).isEqualTo("test");
+		assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(invalid.getBody().getError()).isNotNull();
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			while (repository.count() < 2) Thread.sleep(10);
+		});
+		assertThat(repository.count()).isEqualTo(2);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void import_tasks_should_insert_valid_rows_and_report_invalid_lines() throws Exception {
+		String csv = "name,description,categoryId,deadline\n"
+				+ "first,,1,2023-10-01T00:00\n"
+				+ "second,\"with, a comma\nand a line break\",2,2023-10-02T00:00\n"
+				+ "unknown category,,99,2023-10-03T00:00\n"
+				+ "invalid deadline,,1,tomorrow\n";
+
+		ResponseEntity<String> response = importTasks(csv, "text/csv");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().split("\n"))
+				.contains("{\"line\":5,\"error\":\"category not found\"}")
+				.contains("{\"line\":6,\"error\":\"deadline is not a valid date-time\"}")
+				.endsWith("{\"imported\":2,\"failed\":2,\"done\":true}");
+		assertThat(getTasks().getBody()).extracting(TaskDto::getDescription)
+				.containsExactlyInAnyOrder(null, "with, a comma\nand a line break");
+		assertThat(awaitSearch(() -> searchTasks("?q=comma"), 1).getBody().getTasks())
+				.extracting(TaskDto::getName).containsExactly("second");
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void export_tasks_should_write_files_that_import_again() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task-no-description"));
+
+		ResponseEntity<String> csv = testRestTemplate.getForEntity(getUri("export?format=csv"), String.class);
+		ResponseEntity<String> ndjson = testRestTemplate.getForEntity(getUri("export?format=ndjson"), String.class);
+
+		assertThat(csv.getHeaders().getContentType().toString()).isEqualTo("text/csv");
+		assertThat(csv.getBody().split("\n")).hasSize(3).startsWith("id,categoryId,name,description,deadline");
+		assertThat(importTasks(csv.getBody(), "text/csv").getBody()).endsWith("{\"imported\":2,\"failed\":0,\"done\":true}\n");
+		assertThat(importTasks(ndjson.getBody(), "application/x-ndjson").getBody()).endsWith("{\"imported\":2,\"failed\":0,\"done\":true}\n");
+		assertThat(repository.count()).isEqualTo(6);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void update_tasks_should_update_existing_tasks_and_report_invalid_ones() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task"));
+		TaskDto expectedResult = buildTaskDto(
+				1, "test updated", "This is a test updated", 2, "2023-10-13T10:00");
+
+		ResponseEntity<BulkResultDto[]> response = updateTasks(getPayload("bulk-tasks-update"));
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).extracting(BulkResultDto::getStatus)
+				.containsExactly(200, 404, 400);
+		assertThat(getTaskById(1).getBody()).usingRecursiveComparison().isEqualTo(expectedResult);
+		assertThat(getTaskById(2).getBody().getName()).isEqualTo("test");
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void delete_tasks_should_delete_existing_tasks_and_report_missing_ones() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task"));
+
+		ResponseEntity<BulkResultDto[]> response = deleteTasks(List.of(2, 15));
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).extracting(BulkResultDto::getStatus)
+				.containsExactly(200, 404);
+		assertThat(repository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_tasks_should_negotiate_binary_formats_and_compress_large_responses() throws Exception {
+		ArrayNode payload = new ObjectMapper().createArrayNode();
+		for (int i = 0; i < 50; i++) payload.add(buildTaskPayload("task " + i, "Description of task " + i));
+		createTasks(payload);
+
+		HttpResponse<byte[]> cbor = getTasksAs("application/cbor", "identity");
+		HttpResponse<byte[]> gzip = getTasksAs("application/json", "gzip");
+		TaskDto[] tasks = new ObjectMapper(new CBORFactory()).readValue(cbor.body(), TaskDto[].class);
+		TaskDto[] gunzipped = new ObjectMapper().readValue(new GZIPInputStream(new ByteArrayInputStream(gzip.body())), TaskDto[].class);
+
+		assertThat(cbor.headers().firstValue("Content-Type")).hasValue("application/cbor");
+		assertThat(tasks).hasSize(50);
+		assertThat(tasks[0]).usingRecursiveComparison().isEqualTo(getTasks().getBody()[0]);
+		assertThat(gzip.headers().firstValue("Content-Encoding")).hasValue("gzip");
+		assertThat(gunzipped).hasSize(50);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void patch_task_should_change_only_the_given_fields_and_reject_stale_versions() throws Exception {
+		createTask(getPayload("valid-task"));
+		String eTag = getTaskById(1).getHeaders().getETag();
+		ObjectNode patch = new ObjectMapper().createObjectNode().put("name", "renamed");
+
+		ResponseEntity<TaskDto> patched = patchTask(1, patch, eTag);
+		ResponseEntity<TaskDto> stale = patchTask(1, patch.put("name", "renamed again"), eTag);
+		ResponseEntity<TaskDto> unconditional = patchTask(1, new ObjectMapper().createObjectNode().putNull("description"), null);
+
+		assertThat(patched.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(patched.getBody().getName()).isEqualTo("renamed");
+		assertThat(patched.getBody().getDescription()).isEqualTo("This is a test");
+		assertThat(patched.getHeaders().getETag()).isNotEqualTo(eTag);
+		assertThat(stale.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		assertThat(unconditional.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(getTaskById(1).getBody())
+				.usingRecursiveComparison()
+				.isEqualTo(buildTaskDto(1, "renamed", null, 1, "2023-10-01T00:00"));
+		assertThat(patchTask(2, patch, null).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(patchTask(1, new ObjectMapper().createObjectNode().putNull("name"), null).getStatusCode())
+				.isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_task_should_return_not_modified_when_etag_matches() throws Exception {
+		createTask(getPayload("valid-task"));
+		String eTag = getTaskById(1).getHeaders().getETag();
+
+		ResponseEntity<TaskDto> notModified = getIfNoneMatch("1", eTag, TaskDto.class);
+		updateTask(getPayload("valid-task-update"));
+		ResponseEntity<TaskDto> modified = getIfNoneMatch("1", eTag, TaskDto.class);
+
+		assertThat(eTag).isNotNull();
+		assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(notModified.getBody()).isNull();
+		assertThat(modified.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(modified.getHeaders().getETag()).isNotEqualTo(eTag);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void get_tasks_should_return_not_modified_until_a_task_changes() throws Exception {
+		createTask(getPayload("valid-task"));
+		createTask(getPayload("valid-task"));
+		String eTag = getTasks().getHeaders().getETag();
+
+		ResponseEntity<TaskDto[]> notModified = getIfNoneMatch("", eTag, TaskDto[].class);
+		deleteTask(2);
+		ResponseEntity<TaskDto[]> afterDelete = getIfNoneMatch("", eTag, TaskDto[].class);
+		String eTagAfterDelete = afterDelete.getHeaders().getETag();
+		updateTask(getPayload("valid-task-update"));
+		ResponseEntity<TaskDto[]> afterUpdate = getIfNoneMatch("", eTagAfterDelete, TaskDto[].class);
+
+		assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(afterDelete.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(afterDelete.getBody()).hasSize(1);
+		assertThat(afterUpdate.getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void update_task_should_create_task_when_task_does_not_exist() throws Exception {
+		ResponseEntity<TaskDto> response = updateTask(getPayload("valid-task-update"));
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(repository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void update_task_should_reject_stale_if_match() throws Exception {
+		createTask(getPayload("valid-task"));
+		String eTag = getTaskById(1).getHeaders().getETag();
+		JsonNode payload = getPayload("valid-task-update");
+
+		ResponseEntity<TaskDto> updated = updateTask(payload, eTag);
+		ResponseEntity<TaskDto> stale = updateTask(payload, eTag);
+		ResponseEntity<TaskDto> unknown = updateTask(((ObjectNode) payload.deepCopy()).put("id", 15), "W/\"15-0\"");
+
+		assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(stale.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(repository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void prometheus_endpoint_should_expose_request_service_and_repository_metrics() throws Exception {
+		createTask(getPayload("valid-task"));
+		getTasks();
+
+		ResponseEntity<String> response = testRestTemplate.getForEntity(
+				new URI(baseUrl + ":" + randomServerPort + "/actuator/prometheus"), String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody())
+				.contains("http_server_requests_seconds_bucket{")
+				.contains("todo_service_seconds_bucket{class=\"ch.cern.todo.service.TaskService\"")
+				.contains("spring_data_repository_invocations_seconds_bucket{")
+				.contains("hikaricp_connections_active")
+				.contains("hibernate_query_executions_total");
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void tasks_should_only_be_visible_to_their_tenant() throws Exception {
+		int acmeCategoryId = createCategoryAsTenant("acme");
+		createTask(buildTaskPayload("default report", "For the default tenant"));
+		ObjectNode acmePayload = (ObjectNode) buildTaskPayload("acme report", "For acme");
+		acmePayload.put("categoryId", acmeCategoryId);
+		int acmeTaskId = exchangeAsTenant("acme", HttpMethod.POST, "create", acmePayload, TaskDto.class).getBody().getId();
+
+		ObjectNode foreignCategoryPayload = (ObjectNode) getPayload("valid-task");
+		ResponseEntity<TaskDto> foreignCategory =
+				exchangeAsTenant("acme", HttpMethod.POST, "create", foreignCategoryPayload, TaskDto.class);
+		ResponseEntity<TaskDto[]> defaultTasks = getTasks();
+		ResponseEntity<TaskDto[]> acmeTasks = exchangeAsTenant("acme", HttpMethod.GET, "", null, TaskDto[].class);
+		ResponseEntity<TaskDto> acmeTaskAsDefault = getTaskById(acmeTaskId);
+		ResponseEntity<Void> deleteAsOther = exchangeAsTenant("other", HttpMethod.DELETE, "delete/" + acmeTaskId, null, Void.class);
+		ResponseEntity<TaskSearchResultDto> acmeSearch = awaitSearch(
+				() -> exchangeAsTenant("acme", HttpMethod.GET, "search?q=report", null, TaskSearchResultDto.class), 1);
+		ResponseEntity<String> invalidTenant = exchangeAsTenant("Not A Tenant", HttpMethod.GET, "", null, String.class);
+
+		assertThat(foreignCategory.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		assertThat(defaultTasks.getBody()).extracting(TaskDto::getName).containsExactly("default report");
+		assertThat(acmeTasks.getBody()).extracting(TaskDto::getId).containsExactly(acmeTaskId);
+		assertThat(acmeTaskAsDefault.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(deleteAsOther.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		assertThat(acmeSearch.getBody().getTasks()).extracting(TaskDto::getId).containsExactly(acmeTaskId);
+		assertThat(invalidTenant.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+	void dedicated_tenant_tasks_should_be_stored_in_their_own_schema() throws Exception {
+		int bigCategoryId = createCategoryAsTenant("big");
+		ObjectNode bigPayload = (ObjectNode) getPayload("valid-task");
+		bigPayload.put("categoryId", bigCategoryId);
+		int bigTaskId = exchangeAsTenant("big", HttpMethod.POST, "create", bigPayload, TaskDto.class).getBody().getId();
+		createTask(getPayload("valid-task"));
+
+		ResponseEntity<TaskDto[]> bigTasks = exchangeAsTenant("big", HttpMethod.GET, "", null, TaskDto[].class);
+		ResponseEntity<String> bigStream = exchangeAsTenant("big", HttpMethod.GET, "stream", null, String.class);
+		ResponseEntity<TaskDto[]> defaultTasks = getTasks();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tenant_big.task", Long.class)).isEqualTo(1);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM public.task", Long.class)).isEqualTo(1);
+		assertThat(bigTasks.getBody()).extracting(TaskDto::getId).containsExactly(bigTaskId);
+		assertThat(bigStream.getBody().split("\n")).hasSize(1);
+		assertThat(defaultTasks.getBody()).extracting(TaskDto::getId).doesNotContain(bigTaskId).hasSize(1);
+	}
+
 	private URI getUri(String endpoint) throws URISyntaxException {
 		return new URI(baseUrl + ":" + randomServerPort + "/tasks/" + endpoint);
 	}
@@ -253,38 +793,174 @@ class TaskResourceTests {
 		return new ObjectMapper().readTree(fileContent);
 	}
 
+	private JsonNode buildTaskPayload(String name, String description) throws IOException {
+		ObjectNode payload = (ObjectNode) getPayload("valid-task");
+		payload.put("name", name);
+		payload.put("description", description);
+		return payload;
+	}
+
 	private TaskDto buildTaskDto(int id, String name, String description, int categoryId, String deadline) {
 		return TaskDto.builder()
 				.id(id)
 				.name(name)
 				.description(description)
 				.categoryId(categoryId)
-				.deadline(deadline)
+				.deadline(LocalDateTime.parse(deadline))
 				.build();
 	}
 
 	private ResponseEntity<TaskDto[]> getTasks() throws Exception {
-		URI uri = getUri("");
+		return getTasks("");
+	}
+
+	private ResponseEntity<TaskDto[]> getTasks(String query) throws Exception {
+		URI uri = getUri(query);
 		return testRestTemplate.getForEntity(uri, TaskDto[].class);
 	}
 
+	private ResponseEntity<TaskPageDto> getTasksPage(int after, int limit) throws Exception {
+		URI uri = getUri("?after=" + after + "&limit=" + limit);
+		return testRestTemplate.getForEntity(uri, TaskPageDto.class);
+	}
+
+	private ResponseEntity<TaskSearchResultDto> searchTasks(String query) throws Exception {
+		URI uri = getUri("search" + query);
+		return testRestTemplate.getForEntity(uri, TaskSearchResultDto.class);
+	}
+
+	/** Searches see writes once the index is refreshed, so repeat the search until it has the expected hits. */
+	private ResponseEntity<TaskSearchResultDto> awaitSearch(Callable<ResponseEntity<TaskSearchResultDto>> search, long totalHits)
+			throws Exception {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		ResponseEntity<TaskSearchResultDto> response = search.call();
+		while (response.getBody().getTotalHits() != totalHits && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			response = search.call();
+		}
+		return response;
+	}
+
+	private int createCategoryAsTenant(String tenantId) throws Exception {
+		URI uri = new URI(baseUrl + ":" + randomServerPort + "/categories/create");
+		JsonNode payload = new ObjectMapper().readTree("{\"name\": \"category\"}");
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(TenantContext.HEADER, tenantId);
+		return testRestTemplate.postForEntity(uri, new HttpEntity<>(payload, headers), TaskCategoryDto.class)
+				.getBody().getCategoryId();
+	}
+
+	private <T> ResponseEntity<T> exchangeAsTenant(
+			String tenantId, HttpMethod method, String endpoint, Object body, Class<T> type) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(TenantContext.HEADER, tenantId);
+		return testRestTemplate.exchange(getUri(endpoint), method, new HttpEntity<>(body, headers), type);
+	}
+
+	private ResponseEntity<String> streamTasks(String format) throws Exception {
+		URI uri = getUri("stream?format=" + format);
+		return testRestTemplate.getForEntity(uri, String.class);
+	}
+
+	private Stream<String> subscribeToChanges(String lastEventId) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(getUri("changes"));
+		if (lastEventId != null) request.header("Last-Event-ID", lastEventId);
+		return java.net.http.HttpClient.newHttpClient().send(request.build(), BodyHandlers.ofLines()).body();
+	}
+
+	private List<String> readEvents(Iterator<String> lines, int count) {
+		return assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			List<String> events = new ArrayList<>();
+			StringBuilder event = new StringBuilder();
+			while (events.size() < count && lines.hasNext()) {
+				String line = lines.next();
+				if (line.startsWith(":")) continue;
+				if (!line.isEmpty()) {
+					event.append(line).append('\n');
+				} else if (event.length() > 0) {
+					events.add(event.toString());
+					event.setLength(0);
+				}
+			}
+			return events;
+		});
+	}
+
+	private HttpResponse<byte[]> getTasksAs(String accept, String acceptEncoding) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(getUri(""))
+				.header("Accept", accept)
+				.header("Accept-Encoding", acceptEncoding)
+				.build();
+		return java.net.http.HttpClient.newHttpClient().send(request, BodyHandlers.ofByteArray());
+	}
+
 	private ResponseEntity<TaskDto> getTaskById(int id) throws Exception {
 		URI uri = getUri("" + id);
 		return testRestTemplate.getForEntity(uri, TaskDto.class);
 	}
 
+	private <T> ResponseEntity<T> getIfNoneMatch(String endpoint, String eTag, Class<T> type) throws Exception {
+		URI uri = getUri(endpoint);
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(eTag);
+		return testRestTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), type);
+	}
+
 	private ResponseEntity<TaskDto> createTask(JsonNode payload) throws Exception {
 		URI uri = getUri("create");
 		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
 		return testRestTemplate.postForEntity(uri, request, TaskDto.class);
 	}
 
+	private ResponseEntity<TaskDto> patchTask(int id, JsonNode patch, String ifMatch) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType("application/merge-patch+json"));
+		if (ifMatch != null) headers.setIfMatch(ifMatch);
+		return patchRestTemplate.exchange(getUri("" + id), HttpMethod.PATCH, new HttpEntity<>(patch, headers), TaskDto.class);
+	}
+
 	private ResponseEntity<TaskDto> updateTask(JsonNode payload) throws Exception {
+		return updateTask(payload, null);
+	}
+
+	private ResponseEntity<TaskDto> updateTask(JsonNode payload, String ifMatch) throws Exception {
 		URI uri = getUri("update");
-		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
+		HttpHeaders headers = new HttpHeaders();
+		if (ifMatch != null) headers.setIfMatch(ifMatch);
+		HttpEntity<JsonNode> request = new HttpEntity<>(payload, headers);
 		return patchRestTemplate.exchange(uri, HttpMethod.PATCH, request, TaskDto.class);
 	}
 
+	private ResponseEntity<BulkResultDto[]> createTasks(JsonNode payload) throws Exception {
+		URI uri = getUri("bulk");
+		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
+		return testRestTemplate.postForEntity(uri, request, BulkResultDto[].class);
+	}
+
+	private ResponseEntity<BulkResultDto> ingestTask(JsonNode payload, boolean durable) throws Exception {
+		URI uri = getUri("ingest?durable=" + durable);
+		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
+		return testRestTemplate.postForEntity(uri, request, BulkResultDto.class);
+	}
+
+	private ResponseEntity<String> importTasks(String body, String contentType) throws Exception {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(contentType));
+		return testRestTemplate.postForEntity(getUri("import"), new HttpEntity<>(body, headers), String.class);
+	}
+
+	private ResponseEntity<BulkResultDto[]> updateTasks(JsonNode payload) throws Exception {
+		URI uri = getUri("bulk");
+		HttpEntity<JsonNode> request = new HttpEntity<>(payload);
+		return patchRestTemplate.exchange(uri, HttpMethod.PATCH, request, BulkResultDto[].class);
+	}
+
+	private ResponseEntity<BulkResultDto[]> deleteTasks(List<Integer> ids) throws Exception {
+		URI uri = getUri("bulk");
+		HttpEntity<List<Integer>> request = new HttpEntity<>(ids);
+		return testRestTemplate.exchange(uri, HttpMethod.DELETE, request, BulkResultDto[].class);
+	}
+
 	private ResponseEntity deleteTask(Integer id) throws Exception {
 		URI uri = getUri("delete/"  + id);
 		return testRestTemplate.exchange(uri, HttpMethod.DELETE, HttpEntity.EMPTY, void.class);
@@ -0,0 +1,139 @@
+package ch.cern.todo;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.cern.todo.utils.WriteAheadLog;
+import ch.cern.todo.utils.WriteAheadLog.FsyncPolicy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteAheadLogTests {
+
+	private static final int SEGMENT_SIZE = 64 * 1024;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void open_should_recover_the_records_after_the_last_checkpoint() throws Exception {
+		WriteAheadLog writeAheadLog = WriteAheadLog.open(directory, SEGMENT_SIZE, FsyncPolicy.NEVER);
+		long first = writeAheadLog.append(payload(1));
+		long second = writeAheadLog.append(payload(2));
+		long third = writeAheadLog.append(payload(3));
+		writeAheadLog.applied(first);
+		writeAheadLog.abort(third);
+		writeAheadLog.checkpoint();
+		long fourth = writeAheadLog.append(payload(4));
+
+		WriteAheadLog reopened = WriteAheadLog.open(directory, SEGMENT_SIZE, FsyncPolicy.NEVER);
+
+		assertThat(sequences(reopened)).containsExactly(second, fourth);
+		assertThat(payloads(reopened)).containsExactly("task-2", "task-4");
+		assertThat(reopened.append(payload(5))).isGreaterThan(fourth);
+	}
+
+	@Test
+	void open_should_stop_at_a_torn_record() throws Exception {
+		WriteAheadLog writeAheadLog = WriteAheadLog.open(directory, SEGMENT_SIZE, FsyncPolicy.ALWAYS);
+		writeAheadLog.append(payload(1));
+		writeAheadLog.append(payload(2));
+		writeAheadLog.append(payload(3));
+		writeAheadLog.close();
+
+		Path segment = segments().get(0);
+		int recordSize = 17 + payload(1).length;
+		try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+			file.seek(2L * recordSize + recordSize - 1);
+			file.write('#');
+		}
+
+		WriteAheadLog reopened = WriteAheadLog.open(directory, SEGMENT_SIZE, FsyncPolicy.NEVER);
+
+		assertThat(payloads(reopened)).containsExactly("task-1", "task-2");
+	}
+
+	@Test
+	void checkpoint_should_delete_the_segments_of_applied_records() throws Exception {
+		WriteAheadLog writeAheadLog = WriteAheadLog.open(directory, 1024, FsyncPolicy.NEVER);
+		for (int task = 1; task <= 200; task++) writeAheadLog.applied(writeAheadLog.append(payload(task)));
+		assertThat(segments().size()).isGreaterThan(1);
+
+		writeAheadLog.checkpoint();
+
+		assertThat(segments()).hasSize(1);
+		assertThat(WriteAheadLog.open(directory, 1024, FsyncPolicy.NEVER).getRecovered()).isEmpty();
+	}
+
+	/**
+	 * A separate JVM appends until it is killed. Every record it reported as appended must be
+	 * recovered, followed by at most the records it appended before dying, without gaps.
+	 */
+	@Test
+	void open_should_recover_every_appended_record_after_the_writer_is_killed() throws Exception {
+		Process writer = new ProcessBuilder(
+				Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"),
+				WriteAheadLogTests.class.getName(), directory.toString())
+				.redirectErrorStream(true)
+				.start();
+
+		long acknowledged = 0;
+		try (BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream(), UTF_8))) {
+			String line;
+			while (acknowledged < 50_000 && (line = output.readLine()) != null) acknowledged = Long.parseLong(line.trim());
+			writer.destroyForcibly();
+			assertThat(writer.waitFor(30, TimeUnit.SECONDS)).isTrue();
+		}
+		assertThat(acknowledged).isGreaterThanOrEqualTo(50_000);
+
+		WriteAheadLog reopened = WriteAheadLog.open(directory, 1024 * 1024, FsyncPolicy.NEVER);
+		List<Long> sequences = sequences(reopened);
+		assertThat(sequences.size()).isGreaterThanOrEqualTo((int) acknowledged);
+		for (int index = 0; index < sequences.size(); index++) {
+			assertThat(sequences.get(index)).isEqualTo(index + 1L);
+			assertThat(new String(reopened.getRecovered().get(index).getPayload(), UTF_8)).isEqualTo("task-" + (index + 1));
+		}
+	}
+
+	/** The writer of the test above: appends forever, reporting the last sequence every 1000 records. */
+	public static void main(String[] args) throws IOException {
+		WriteAheadLog writeAheadLog = WriteAheadLog.open(Paths.get(args[0]), 1024 * 1024, FsyncPolicy.NEVER);
+		for (int task = 1; ; task++) {
+			long sequence = writeAheadLog.append(payload(task));
+			if (sequence % 1000 == 0) {
+				System.out.println(sequence);
+				System.out.flush();
+			}
+		}
+	}
+
+	private static byte[] payload(int task) {
+		return String.format("task-%d", task).getBytes(UTF_8);
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted().collect(Collectors.toList());
+		}
+	}
+
+	private List<Long> sequences(WriteAheadLog writeAheadLog) {
+		return writeAheadLog.getRecovered().stream().map(WriteAheadLog.Record::getSequence).collect(Collectors.toList());
+	}
+
+	private List<String> payloads(WriteAheadLog writeAheadLog) {
+		return writeAheadLog.getRecovered().stream().map(record -> new String(record.getPayload(), UTF_8)).collect(Collectors.toList());
+	}
+}